@@ -0,0 +1,25 @@
+package com.aws.test.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准入口
+ * 描述：接受JMH的全部命令行参数，并固定附带GC分析器，延迟/吞吐与每次操作的分配字节数一同输出
+ * 用法：java -jar benchmarks.jar [基准名正则] [JMH参数]
+ * @author @AWS
+ *
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception{
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(cmdOptions)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
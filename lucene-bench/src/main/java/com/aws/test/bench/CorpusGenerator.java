@@ -0,0 +1,135 @@
+package com.aws.test.bench;
+
+import com.aws.test.utils.LuceneUtil;
+import com.aws.test.utils.LuceneUtil.FieldModel;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * 合成语料生成器
+ * 描述：由固定种子生成中英文混合文档，同一种子、同一序号总是生成相同的文档，多次运行的基准结果可比
+ * 文档字段：id(主键)、title(标题，高亮)、content(正文)、price(长整型)
+ * @author @AWS
+ *
+ */
+public class CorpusGenerator {
+    /**
+     * 搜索范围
+     */
+    public static final String[] SEARCH_COLS = {"title", "content"};
+
+    /**
+     * 中文词汇-包含常用的检索词，保证查询有足够的命中
+     */
+    private static final String[] CHINESE_WORDS = {
+            "中国", "北京", "上海", "深圳", "搜索", "引擎", "索引", "分词", "数据", "性能",
+            "测试", "系统", "文档", "查询", "高亮", "服务器", "网络", "用户", "企业", "技术",
+            "开发", "应用", "管理", "平台", "安全", "存储", "缓存", "并发", "线程", "内存",
+            "磁盘", "分析", "统计", "报表", "订单", "商品", "价格", "物流", "支付", "客户",
+            "全文检索", "信息", "模型", "算法", "优化", "架构", "部署", "监控", "日志", "配置"
+    };
+
+    /**
+     * 英文词汇
+     */
+    private static final String[] ENGLISH_WORDS = {
+            "lucene", "java", "index", "search", "cloud", "api", "http", "cache", "thread", "memory",
+            "query", "server", "client", "json", "docker", "linux", "kernel", "latency", "throughput", "benchmark"
+    };
+
+    /**
+     * 中文标点
+     */
+    private static final String[] PUNCTUATIONS = {"，", "。", "；", "、"};
+
+    /**
+     * 英文词出现的比例
+     */
+    private static final double ENGLISH_RATIO = 0.3;
+
+    private final long seed;
+
+    public CorpusGenerator(long seed){
+        this.seed = seed;
+    }
+
+    /**
+     * 生成文档
+     * @param ordinal	文档序号，同时作为主键
+     * @return
+     */
+    public FieldModel[] doc(long ordinal){
+        Random random = new Random(seed * 31 + ordinal);
+        return new FieldModel[]{
+                new FieldModel("id", String.valueOf(ordinal), LuceneUtil.STRING_FIELD_TYPE_STORED, true, false),
+                new FieldModel("title", text(random, 5 + random.nextInt(6)), LuceneUtil.TEXT_FIELD_TYPE_STORED, false, true),
+                new FieldModel("content", text(random, 50 + random.nextInt(151)), LuceneUtil.TEXT_FIELD_TYPE_STORED, false, false),
+                FieldModel.ofLong("price", random.nextInt(100000), true)
+        };
+    }
+
+    /**
+     * 生成文档的新版本-主键不变，内容随版本号变化
+     * @param ordinal	文档序号
+     * @param version	版本号
+     * @return
+     */
+    public FieldModel[] docVersion(long ordinal, long version){
+        return new CorpusGenerator(seed + version).doc(ordinal);
+    }
+
+    /**
+     * 生成正文-不建立文档模型，用于分词基准
+     * @param ordinal	序号
+     * @return
+     */
+    public String content(long ordinal){
+        Random random = new Random(seed * 31 + ordinal);
+        return text(random, 50 + random.nextInt(151));
+    }
+
+    /**
+     * 文档迭代器-用于bulkAddIndex
+     * @param count		文档数
+     * @return
+     */
+    public Iterator<FieldModel[]> docs(final long count){
+        return new Iterator<FieldModel[]>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public FieldModel[] next() {
+                return doc(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static String text(Random random, int words){
+        StringBuilder sb = new StringBuilder(words * 4);
+        for(int i = 0; i < words; i++){
+            if(random.nextDouble() < ENGLISH_RATIO){
+                if(sb.length() > 0 && sb.charAt(sb.length() - 1) != ' '){
+                    sb.append(' ');
+                }
+                sb.append(ENGLISH_WORDS[random.nextInt(ENGLISH_WORDS.length)]).append(' ');
+            }else{
+                sb.append(CHINESE_WORDS[random.nextInt(CHINESE_WORDS.length)]);
+            }
+            if(random.nextInt(8) == 0){
+                sb.append(PUNCTUATIONS[random.nextInt(PUNCTUATIONS.length)]);
+            }
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,162 @@
+package com.aws.test.bench;
+
+import com.aws.test.utils.LuceneUtil;
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 索引注册表并发基准
+ * 描述：多个搜索线程随机搜索大量小索引，同时一个后台线程反复关闭并重新打开一个带预热查询的大索引；
+ * 以采样模式输出小索引搜索的延迟分布，对比reopen=false观察打开慢索引时是否阻塞其他索引的搜索
+ * @author @AWS
+ *
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexRegistryBenchmark {
+    /**
+     * 小索引数
+     */
+    @Param({"64"})
+    public int indexCount;
+
+    /**
+     * 大索引文档数
+     */
+    @Param({"100000"})
+    public int slowDocs;
+
+    /**
+     * 是否在后台反复关闭并重新打开大索引
+     */
+    @Param({"true", "false"})
+    public boolean reopen;
+
+    private static final String[] SEARCH_COLS = {"desc"};
+
+    private static final int SMALL_DOCS = 100;
+
+    private String basePath;
+
+    private String[] smallPaths;
+
+    private String slowPath;
+
+    private volatile boolean stop;
+
+    private Thread reopener;
+
+    /**
+     * 每个搜索线程的随机数
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom{
+        private final Random random = new Random();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception{
+        basePath = TempIndex.create("lucene-bench-registry");
+        smallPaths = new String[indexCount];
+        for(int i = 0; i < indexCount; i++){
+            smallPaths[i] = basePath + File.separator + "small-" + i;
+            FieldModel[][] docs = new FieldModel[SMALL_DOCS][];
+            for(int j = 0; j < docs.length; j++){
+                docs[j] = doc(i + "-" + j);
+            }
+            LuceneUtil.addIndex(smallPaths[i], docs);
+        }
+        slowPath = basePath + File.separator + "slow";
+        LuceneUtil.bulkAddIndex(slowPath, new Iterator<FieldModel[]>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < slowDocs;
+            }
+
+            @Override
+            public FieldModel[] next() {
+                return doc(String.valueOf(next++));
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }, Runtime.getRuntime().availableProcessors(), null);
+        //预热查询让大索引每次打开都很慢
+        String[] warmQueries = new String[20];
+        Arrays.fill(warmQueries, "用户 OR 测试 OR 数据");
+        LuceneUtil.setWarmQueries(slowPath, SEARCH_COLS, warmQueries);
+
+        stop = false;
+        if(reopen){
+            reopener = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try{
+                        while(!stop){
+                            LuceneUtil.closeIndex(slowPath);
+                            LuceneUtil.count(slowPath, "用户", SEARCH_COLS);
+                        }
+                    }catch(Exception e){
+                        e.printStackTrace();
+                    }
+                }
+            }, "bench-reopen");
+            reopener.setDaemon(true);
+            reopener.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException{
+        stop = true;
+        if(reopener != null){
+            reopener.join();
+            reopener = null;
+        }
+        for(String smallPath : smallPaths){
+            LuceneUtil.closeIndex(smallPath);
+        }
+        LuceneUtil.closeIndex(slowPath);
+        TempIndex.destroy(basePath);
+    }
+
+    @Benchmark
+    public int countSmallIndex(ThreadRandom threadRandom) throws Exception{
+        return LuceneUtil.count(smallPaths[threadRandom.random.nextInt(smallPaths.length)], "用户", SEARCH_COLS);
+    }
+
+    private static FieldModel[] doc(String id){
+        return new FieldModel[]{
+                new FieldModel("id", id, LuceneUtil.STRING_FIELD_TYPE_STORED, true, false),
+                new FieldModel("desc", "用户" + id + "的测试数据", LuceneUtil.TEXT_FIELD_TYPE_NOT_STORED, false, false)
+        };
+    }
+}
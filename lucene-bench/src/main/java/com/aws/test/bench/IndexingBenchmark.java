@@ -0,0 +1,112 @@
+package com.aws.test.bench;
+
+import com.aws.test.utils.LuceneUtil;
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入基准
+ * 描述：addIndex批量新增不断增长的索引；updateIndex在预先建立的索引上随机替换已有主键的文档(修改热点)
+ * 参数translog切换每次调用提交与预写日志两种持久化方式
+ * @author @AWS
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexingBenchmark {
+    /**
+     * 每次调用写入的文档数
+     */
+    @Param({"1", "100"})
+    public int batchSize;
+
+    /**
+     * 修改基准预先建立的文档数
+     */
+    @Param({"100000"})
+    public int docCount;
+
+    /**
+     * 是否开启预写日志
+     */
+    @Param({"false", "true"})
+    public boolean translog;
+
+    @Param({"20151010"})
+    public long seed;
+
+    private CorpusGenerator corpus;
+
+    private String addPath;
+
+    private String updatePath;
+
+    private long nextOrdinal;
+
+    private long version;
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception{
+        corpus = new CorpusGenerator(seed);
+        random = new Random(seed);
+        addPath = TempIndex.create("lucene-bench-add");
+        updatePath = TempIndex.create("lucene-bench-update");
+        if(translog){
+            LuceneUtil.enableTranslog(addPath);
+            LuceneUtil.enableTranslog(updatePath);
+        }
+        LuceneUtil.bulkAddIndex(updatePath, corpus.docs(docCount), Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        TempIndex.destroy(addPath);
+        TempIndex.destroy(updatePath);
+    }
+
+    /**
+     * 批量新增新主键的文档
+     */
+    @Benchmark
+    public void addIndex() throws Exception{
+        FieldModel[][] docs = new FieldModel[batchSize][];
+        for(int i = 0; i < batchSize; i++){
+            docs[i] = corpus.doc(nextOrdinal++);
+        }
+        LuceneUtil.addIndex(addPath, docs);
+    }
+
+    /**
+     * 随机替换已有主键的文档
+     */
+    @Benchmark
+    public void updateIndex() throws Exception{
+        FieldModel[][] docs = new FieldModel[batchSize][];
+        version++;
+        for(int i = 0; i < batchSize; i++){
+            docs[i] = corpus.docVersion(random.nextInt(docCount), version);
+        }
+        LuceneUtil.updateIndex(updatePath, docs);
+    }
+}
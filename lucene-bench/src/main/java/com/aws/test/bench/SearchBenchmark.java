@@ -0,0 +1,112 @@
+package com.aws.test.bench;
+
+import com.aws.test.utils.LuceneUtil;
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索基准
+ * 描述：在合成语料建立的索引上测量search(有无高亮)、深分页searchPage与count
+ * 注：查询结果缓存默认关闭，每次调用都真实执行查询
+ * @author @AWS
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    /**
+     * 索引文档数
+     */
+    @Param({"100000"})
+    public int docCount;
+
+    /**
+     * 查询字符串-中文词组、中英混合
+     */
+    @Param({"搜索 引擎", "lucene 性能"})
+    public String query;
+
+    /**
+     * 深分页的页码
+     */
+    @Param({"100"})
+    public int deepPage;
+
+    @Param({"20151010"})
+    public long seed;
+
+    private static final int PAGE_SIZE = 20;
+
+    private String indexPath;
+
+    /**
+     * 提取模型-不高亮
+     */
+    private FieldModel[] plainModel;
+
+    /**
+     * 提取模型-高亮标题与正文
+     */
+    private FieldModel[] highlightModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception{
+        indexPath = TempIndex.create("lucene-bench-search");
+        LuceneUtil.bulkAddIndex(indexPath, new CorpusGenerator(seed).docs(docCount),
+                Runtime.getRuntime().availableProcessors(), null);
+        plainModel = new FieldModel[]{
+                new FieldModel("id", null, null, true, false),
+                new FieldModel("title", null, null, false, false),
+                new FieldModel("content", null, null, false, false)
+        };
+        highlightModel = new FieldModel[]{
+                new FieldModel("id", null, null, true, false),
+                new FieldModel("title", null, null, false, true),
+                new FieldModel("content", null, null, false, true)
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        TempIndex.destroy(indexPath);
+    }
+
+    @Benchmark
+    public List<FieldModel[]> search() throws Exception{
+        return LuceneUtil.search(indexPath, query, CorpusGenerator.SEARCH_COLS, plainModel, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<FieldModel[]> searchHighlight() throws Exception{
+        return LuceneUtil.search(indexPath, query, CorpusGenerator.SEARCH_COLS, highlightModel, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<FieldModel[]> searchPageDeep() throws Exception{
+        return LuceneUtil.searchPage(indexPath, query, CorpusGenerator.SEARCH_COLS, plainModel, deepPage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int count() throws Exception{
+        return LuceneUtil.count(indexPath, query, CorpusGenerator.SEARCH_COLS);
+    }
+}
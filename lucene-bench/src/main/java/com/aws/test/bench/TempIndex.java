@@ -0,0 +1,52 @@
+package com.aws.test.bench;
+
+import com.aws.test.utils.LuceneUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * 基准使用的临时索引目录
+ * 描述：每次试验在临时目录下新建索引，结束时关闭并删除(含预写日志目录)
+ * @author @AWS
+ *
+ */
+class TempIndex {
+    private TempIndex(){
+    }
+
+    /**
+     * 新建临时索引存储路径
+     * @param prefix	目录名前缀
+     * @return
+     * @throws IOException
+     */
+    static String create(String prefix) throws IOException{
+        return Files.createTempDirectory(prefix).toFile().getAbsolutePath() + File.separator + "index";
+    }
+
+    /**
+     * 关闭并删除临时索引
+     * @param indexPath		索引存储路径
+     */
+    static void destroy(String indexPath){
+        if(indexPath == null){
+            return;
+        }
+        LuceneUtil.closeIndex(indexPath);
+        delete(new File(indexPath).getParentFile());
+    }
+
+    private static void delete(File file){
+        File[] children = file.listFiles();
+        if(children != null){
+            for(File child : children){
+                delete(child);
+            }
+        }
+        if(!file.delete()){
+            file.deleteOnExit();
+        }
+    }
+}
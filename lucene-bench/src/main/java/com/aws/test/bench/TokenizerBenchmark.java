@@ -0,0 +1,86 @@
+package com.aws.test.bench;
+
+import com.aws.test.utils.ik.IKTokenizer5x;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分词基准
+ * 描述：复用同一个IKTokenizer5x对合成正文分词，测量不经过索引的原始分词吞吐(每秒正文数)
+ * @author @AWS
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizerBenchmark {
+    /**
+     * 是否智能分词
+     */
+    @Param({"true", "false"})
+    public boolean useSmart;
+
+    @Param({"20151010"})
+    public long seed;
+
+    /**
+     * 轮流分词的正文数
+     */
+    private static final int TEXT_COUNT = 1024;
+
+    private String[] texts;
+
+    private int next;
+
+    private IKTokenizer5x tokenizer;
+
+    private CharTermAttribute termAtt;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        CorpusGenerator corpus = new CorpusGenerator(seed);
+        texts = new String[TEXT_COUNT];
+        for(int i = 0; i < TEXT_COUNT; i++){
+            texts[i] = corpus.content(i);
+        }
+        tokenizer = new IKTokenizer5x(useSmart);
+        termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+    }
+
+    @Benchmark
+    public int tokenize(Blackhole bh) throws Exception{
+        String text = texts[next];
+        next = (next + 1) % TEXT_COUNT;
+        int tokens = 0;
+        tokenizer.setReader(new StringReader(text));
+        try{
+            tokenizer.reset();
+            while(tokenizer.incrementToken()){
+                bh.consume(termAtt);
+                tokens++;
+            }
+            tokenizer.end();
+        }finally{
+            tokenizer.close();
+        }
+        return tokens;
+    }
+}
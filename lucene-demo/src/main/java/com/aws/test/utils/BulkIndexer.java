@@ -0,0 +1,209 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.index.IndexWriter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行批量索引器
+ * 描述：调用线程顺序读取文档，文档构建与IK分词由工作线程池并行完成并写入共享的索引写入器，
+ * 单个文档失败只记录不中断整个批次，全部写入后统一提交一次
+ * @author @AWS
+ *
+ */
+public class BulkIndexer {
+    /**
+     * 最多记录的失败明细数-超出部分只计数
+     */
+    public static final int MAX_RECORDED_FAILURES = 10000;
+
+    /**
+     * 默认进度回调间隔(文档数)
+     */
+    public static final int DEFAULT_PROGRESS_INTERVAL = 10000;
+
+    /**
+     * 进度监听器
+     */
+    public interface ProgressListener{
+        /**
+         * 进度回调-在工作线程中调用，实现需线程安全且尽量轻量
+         * @param indexedCount		已成功写入的文档数
+         * @param failedCount		已失败的文档数
+         * @param docsPerSecond		当前平均吞吐(文档/秒)
+         */
+        void onProgress(long indexedCount, long failedCount, double docsPerSecond);
+    }
+
+    /**
+     * 单个文档的失败信息
+     */
+    public static class Failure{
+        /**
+         * 文档在输入中的序号(从0开始)
+         */
+        private final long ordinal;
+        /**
+         * 失败原因
+         */
+        private final Throwable cause;
+
+        Failure(long ordinal, Throwable cause){
+            this.ordinal = ordinal;
+            this.cause = cause;
+        }
+
+        public long getOrdinal() {
+            return ordinal;
+        }
+        public Throwable getCause() {
+            return cause;
+        }
+    }
+
+    /**
+     * 批量索引结果
+     */
+    public static class Result{
+        private final long indexedCount;
+        private final long failedCount;
+        private final long elapsedMillis;
+        private final List<Failure> failures;
+
+        Result(long indexedCount, long failedCount, long elapsedMillis, List<Failure> failures){
+            this.indexedCount = indexedCount;
+            this.failedCount = failedCount;
+            this.elapsedMillis = elapsedMillis;
+            this.failures = failures;
+        }
+
+        public long getIndexedCount() {
+            return indexedCount;
+        }
+        public long getFailedCount() {
+            return failedCount;
+        }
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+        /**
+         * 平均吞吐(文档/秒)
+         */
+        public double getDocsPerSecond() {
+            return elapsedMillis == 0 ? indexedCount : indexedCount * 1000.0 / elapsedMillis;
+        }
+        /**
+         * 失败明细-最多记录MAX_RECORDED_FAILURES条
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+    }
+
+    private final int threads;
+    private final int progressInterval;
+    private final ProgressListener listener;
+
+    /**
+     * @param threads				工作线程数
+     * @param progressInterval		每处理多少文档回调一次进度
+     * @param listener				进度监听器，可为null
+     */
+    public BulkIndexer(int threads, int progressInterval, ProgressListener listener){
+        if(threads <= 0 || progressInterval <= 0){
+            throw new IllegalArgumentException("批量索引参数不合法！");
+        }
+        this.threads = threads;
+        this.progressInterval = progressInterval;
+        this.listener = listener;
+    }
+
+    /**
+     * 并行写入文档并提交
+     * @param indexPath		索引存储路径-经由LuceneUtil提交(预写日志代数、提交耗时)
+     * @param iw			共享的索引写入器
+     * @param docs			文档模型迭代器（Stream可通过iterator()传入）
+     * @return				批量索引结果
+     * @throws Exception	提交失败时抛出，未开启预写日志时已写入的文档随之回滚
+     */
+    public Result index(String indexPath, final IndexWriter iw, Iterator<FieldModel[]> docs) throws Exception{
+        final long start = System.nanoTime();
+        final AtomicLong indexed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<Failure> failures = Collections.synchronizedList(new ArrayList<Failure>());
+        //限制在途文档数，避免输入远快于写入时堆积
+        final Semaphore inFlight = new Semaphore(threads * 64);
+
+        final AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "lucene-bulk-indexer-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try{
+            long ordinal = 0;
+            while(docs.hasNext()){
+                final FieldModel[] doc = docs.next();
+                final long docOrdinal = ordinal++;
+                inFlight.acquire();
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try{
+                            iw.addDocument(LuceneUtil.buildDocument(doc));
+                            indexed.incrementAndGet();
+                        }catch(Throwable t){
+                            if(failed.incrementAndGet() <= MAX_RECORDED_FAILURES){
+                                failures.add(new Failure(docOrdinal, t));
+                            }
+                        }finally{
+                            inFlight.release();
+                        }
+                        if(listener != null && (docOrdinal + 1) % progressInterval == 0){
+                            long elapsed = System.nanoTime() - start;
+                            listener.onProgress(indexed.get(), failed.get(),
+                                    indexed.get() * 1e9 / Math.max(1, elapsed));
+                        }
+                    }
+                });
+            }
+        }finally{
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        //提交事务
+        try{
+            LuceneUtil.commit(indexPath, iw);
+        }catch(Exception e){
+            e.printStackTrace();
+            LuceneUtil.rollbackOnFailure(indexPath, iw);
+            throw new RuntimeException("批量索引提交失败");
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if(listener != null){
+            listener.onProgress(indexed.get(), failed.get(),
+                    elapsedMillis == 0 ? indexed.get() : indexed.get() * 1000.0 / elapsedMillis);
+        }
+        List<Failure> failureList;
+        synchronized (failures) {
+            failureList = new ArrayList<Failure>(failures);
+        }
+        return new Result(indexed.get(), failed.get(), elapsedMillis, failureList);
+    }
+}
@@ -0,0 +1,105 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.document.FieldType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列式搜索结果
+ * 描述：每个提取字段一个取值数组，所有命中共享同一个结果模式，不为每个命中、每个字段创建FieldModel；
+ * 需要文档模型时可通过getDoc/toDocs按需转换，便于调用方逐步迁移
+ * @author @AWS
+ *
+ */
+public class ColumnarResult {
+    private final ResultSchema schema;
+
+    /**
+     * 字段取值-[字段][命中]
+     */
+    private final String[][] columns;
+
+    private final int size;
+
+    ColumnarResult(ResultSchema schema, String[][] columns, int size){
+        this.schema = schema;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    public ResultSchema getSchema(){
+        return schema;
+    }
+
+    /**
+     * 命中数
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * 获取字段取值
+     * @param hit		命中序号
+     * @param col		字段在模式中的位置
+     * @return
+     */
+    public String getFieldValue(int hit, int col){
+        if(hit < 0 || hit >= size){
+            throw new IndexOutOfBoundsException("命中序号越界：" + hit);
+        }
+        return columns[col][hit];
+    }
+
+    /**
+     * 获取字段取值
+     * @param hit			命中序号
+     * @param fieldName		字段名
+     * @return				字段不在模式中时返回null
+     */
+    public String getFieldValue(int hit, String fieldName){
+        int col = schema.indexOf(fieldName);
+        return col < 0 ? null : getFieldValue(hit, col);
+    }
+
+    public String getFieldName(int col){
+        return schema.getFieldName(col);
+    }
+    public FieldType getFieldType(int col){
+        return schema.getFieldType(col);
+    }
+    public boolean getIdFlag(int col){
+        return schema.getIdFlag(col);
+    }
+    public boolean getHighlightFlag(int col){
+        return schema.getHighlightFlag(col);
+    }
+
+    /**
+     * 转换为文档模型
+     * @param hit		命中序号
+     * @return			与search返回的文档模型相同
+     */
+    public FieldModel[] getDoc(int hit){
+        FieldModel[] resDoc = new FieldModel[schema.getFieldCount()];
+        for(int i = 0; i < resDoc.length; i++){
+            resDoc[i] = new FieldModel(schema.getFieldName(i), getFieldValue(hit, i),
+                    schema.getFieldType(i), schema.getIdFlag(i), schema.getHighlightFlag(i));
+        }
+        return resDoc;
+    }
+
+    /**
+     * 转换为文档模型结果集
+     * @return			与search返回的结果集相同
+     */
+    public List<FieldModel[]> toDocs(){
+        List<FieldModel[]> resDocList = new ArrayList<FieldModel[]>(size);
+        for(int hit = 0; hit < size; hit++){
+            resDocList.add(getDoc(hit));
+        }
+        return resDocList;
+    }
+}
@@ -0,0 +1,174 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.ik.IKAnalyzer5x;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译查询缓存
+ * 描述：按(搜索范围、搜索字符串、分词模式)缓存解析后的Query，重复查询不再重新解析与IK分词；
+ * 缓存分段加锁并各自做LRU淘汰，QueryParser非线程安全，按线程与搜索范围复用
+ * 注：缓存的Query在多个线程间共享，取出后不得修改(如setBoost)
+ * @author @AWS
+ *
+ */
+class CompiledQueryCache {
+    /**
+     * 默认缓存的查询数
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    /**
+     * 每个线程最多复用的解析器数
+     */
+    private static final int MAX_PARSERS_PER_THREAD = 64;
+
+    /**
+     * 分段数-须为2的幂
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * 缓存键-搜索范围、搜索字符串、分词模式
+     */
+    private static final class Key{
+        private final List<String> fields;
+        private final String queryStr;
+        private final boolean useSmart;
+        private final int hash;
+
+        private Key(List<String> fields, String queryStr, boolean useSmart){
+            this.fields = fields;
+            this.queryStr = queryStr;
+            this.useSmart = useSmart;
+            this.hash = 31 * (31 * fields.hashCode() + queryStr.hashCode()) + (useSmart ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj){
+                return true;
+            }
+            if(!(obj instanceof Key)){
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && useSmart == other.useSmart
+                    && queryStr.equals(other.queryStr) && fields.equals(other.fields);
+        }
+    }
+
+    /**
+     * 缓存分段-访问顺序的LRU容器
+     */
+    private static final class Segment extends LinkedHashMap<Key,Query>{
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        private Segment(int maxEntries){
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key,Query> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private final Analyzer analyzer;
+    private final boolean useSmart;
+    private final Segment[] segments;
+
+    /**
+     * 线程内复用的查询解析器-key:搜索范围，value：该范围的解析器
+     */
+    private final ThreadLocal<Map<List<String>,QueryParser>> parsers = new ThreadLocal<Map<List<String>,QueryParser>>(){
+        @Override
+        protected Map<List<String>,QueryParser> initialValue() {
+            return new HashMap<List<String>,QueryParser>();
+        }
+    };
+
+    /**
+     * @param analyzer		查询分词器
+     * @param maxEntries	缓存的查询数上限，0表示不缓存
+     */
+    CompiledQueryCache(Analyzer analyzer, int maxEntries){
+        if(maxEntries < 0){
+            throw new IllegalArgumentException("缓存上限不能小于0！");
+        }
+        this.analyzer = analyzer;
+        this.useSmart = analyzer instanceof IKAnalyzer5x && ((IKAnalyzer5x) analyzer).useSmart();
+        int perSegment = maxEntries == 0 ? 0 : Math.max(1, maxEntries / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for(int i = 0; i < SEGMENTS; i++){
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * 解析查询
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]，null表示使用默认域
+     * @param queryStr			搜索字符串
+     * @return					解析后的查询对象(共享，不得修改)
+     * @throws ParseException
+     */
+    Query parse(String[] searchColNames, String queryStr) throws ParseException{
+        List<String> fields = searchColNames == null
+                ? Collections.<String>emptyList()
+                : Arrays.asList(searchColNames.clone());
+        Key key = new Key(fields, queryStr, useSmart);
+        Segment segment = segments[spread(key.hash) & (SEGMENTS - 1)];
+        Query query;
+        synchronized (segment) {
+            query = segment.get(key);
+        }
+        if(query == null){
+            query = getParser(fields).parse(queryStr);
+            synchronized (segment) {
+                segment.put(key, query);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 获取当前线程的查询解析器
+     * @param fields	搜索范围
+     * @return
+     */
+    private QueryParser getParser(List<String> fields){
+        Map<List<String>,QueryParser> threadParsers = parsers.get();
+        QueryParser parser = threadParsers.get(fields);
+        if(parser == null){
+            if(threadParsers.size() >= MAX_PARSERS_PER_THREAD){
+                threadParsers.clear();
+            }
+            parser = fields.isEmpty()
+                    ? new QueryParser(null, analyzer)
+                    : new MultiFieldQueryParser(fields.toArray(new String[fields.size()]), analyzer);
+            threadParsers.put(fields, parser);
+        }
+        return parser;
+    }
+
+    private static int spread(int h){
+        return h ^ (h >>> 16);
+    }
+}
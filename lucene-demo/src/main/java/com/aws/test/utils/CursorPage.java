@@ -0,0 +1,45 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 描述：当前页的文档模型结果集及获取下一页的游标
+ * @author @AWS
+ *
+ */
+public class CursorPage {
+    /**
+     * 当前页文档模型结果集
+     */
+    private final List<FieldModel[]> docs;
+    /**
+     * 下一页游标，没有下一页时为null
+     */
+    private final String nextCursor;
+    /**
+     * 匹配查询的总条数
+     */
+    private final long totalHits;
+
+    CursorPage(List<FieldModel[]> docs, String nextCursor, long totalHits){
+        this.docs = docs;
+        this.nextCursor = nextCursor;
+        this.totalHits = totalHits;
+    }
+
+    public List<FieldModel[]> getDocs() {
+        return docs;
+    }
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    public long getTotalHits() {
+        return totalHits;
+    }
+}
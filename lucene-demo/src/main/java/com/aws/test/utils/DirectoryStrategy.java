@@ -0,0 +1,164 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.Lock;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NRTCachingDirectory;
+import org.apache.lucene.store.RAMDirectory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 索引目录策略
+ * 描述：决定索引目录以何种方式打开，按索引的I/O特征在首次使用前为每个索引目录选择
+ * @author @AWS
+ *
+ */
+public enum DirectoryStrategy {
+    /**
+     * 默认-由FSDirectory.open按平台选择实现(64位JVM上为MMapDirectory)
+     */
+    FS{
+        @Override
+        Directory open(Path path) throws IOException {
+            return FSDirectory.open(path);
+        }
+    },
+
+    /**
+     * 内存映射-索引文件映射到虚拟内存，由操作系统页缓存承载热数据
+     * 适用：大型、以读为主的索引
+     */
+    MMAP{
+        @Override
+        Directory open(Path path) throws IOException {
+            return new MMapDirectory(path);
+        }
+    },
+
+    /**
+     * 近实时缓存-新刷新的小段与小合并结果先保存在内存中，提交时才写入磁盘
+     * 适用：写入频繁、近实时刷新的索引
+     */
+    NRT_CACHING{
+        @Override
+        Directory open(Path path) throws IOException {
+            return new NRTCachingDirectory(FSDirectory.open(path), NRT_MAX_MERGE_SIZE_MB, NRT_MAX_CACHED_MB);
+        }
+    },
+
+    /**
+     * 常驻内存-打开时将磁盘上的索引完整复制到内存，之后的读写都在内存中进行；
+     * 提交时本次提交的新文件回写磁盘，关闭、淘汰或重新打开后从磁盘恢复已提交的内容
+     * 适用：体量小、访问极热的同义词/查找类索引
+     */
+    RAM{
+        @Override
+        Directory open(Path path) throws IOException {
+            //首次使用的索引目录尚不存在，先创建再复制
+            Files.createDirectories(path);
+            FSDirectory fsDir = FSDirectory.open(path);
+            try{
+                return new WriteBackRAMDirectory(fsDir);
+            }catch(IOException e){
+                fsDir.close();
+                throw e;
+            }
+        }
+    };
+
+    /**
+     * 近实时缓存：大于该值(MB)的合并不缓存
+     */
+    private static final double NRT_MAX_MERGE_SIZE_MB = 5.0;
+
+    /**
+     * 近实时缓存：内存中缓存的段总大小上限(MB)
+     */
+    private static final double NRT_MAX_CACHED_MB = 60.0;
+
+    /**
+     * 打开索引目录
+     * @param path		索引存储路径
+     * @return
+     * @throws IOException
+     */
+    abstract Directory open(Path path) throws IOException;
+
+    /**
+     * 回写磁盘的内存目录
+     * 描述：读写都在内存中进行；写入器提交时对本次提交的文件调用sync，此时把尚未写入磁盘的文件复制到磁盘并fsync，
+     * 提交点的重命名与旧提交文件的删除同步到磁盘，写锁取自磁盘目录，保证同一索引目录只有一个写入器
+     */
+    private static final class WriteBackRAMDirectory extends FilterDirectory{
+        private final FSDirectory disk;
+
+        /**
+         * 磁盘上已有的文件
+         */
+        private final Set<String> onDisk = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+
+        private WriteBackRAMDirectory(FSDirectory disk) throws IOException{
+            super(new RAMDirectory(disk, IOContext.READONCE));
+            this.disk = disk;
+            onDisk.addAll(Arrays.asList(disk.listAll()));
+        }
+
+        @Override
+        public void sync(Collection<String> names) throws IOException {
+            for(String name : names){
+                if(!onDisk.contains(name)){
+                    disk.copyFrom(in, name, name, IOContext.DEFAULT);
+                    onDisk.add(name);
+                }
+            }
+            disk.sync(names);
+        }
+
+        @Override
+        public void renameFile(String source, String dest) throws IOException {
+            in.renameFile(source, dest);
+            if(onDisk.remove(source)){
+                disk.renameFile(source, dest);
+                onDisk.add(dest);
+            }
+        }
+
+        @Override
+        public void deleteFile(String name) throws IOException {
+            in.deleteFile(name);
+            if(onDisk.remove(name)){
+                try{
+                    disk.deleteFile(name);
+                }catch(IOException e){
+                    //磁盘上残留的文件不被任何提交引用，下次打开时由写入器清理
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public Lock obtainLock(String name) throws IOException {
+            return disk.obtainLock(name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try{
+                in.close();
+            }finally{
+                disk.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文档投影器
+ * 描述：按提取文档的模型只加载需要的字段，存储字段通过StoredFieldVisitor按需读取，
+ * 所需字段读齐后立即停止；模型域类型带有DocValues的字段直接从DocValues读取，不触碰存储字段
+ * @author @AWS
+ *
+ */
+class DocProjector {
+    private final List<LeafReaderContext> leaves;
+
+    /**
+     * 字段名在模型中的位置-key:字段名，value：模型中的下标(同名字段取第一个)
+     */
+    private final Map<String,Integer> storedSlots = new HashMap<String,Integer>();
+
+    /**
+     * 模型中每个字段是否从DocValues读取
+     */
+    private final boolean[] fromDocValues;
+
+    private final FieldModel[] doc;
+
+    /**
+     * 需要从存储字段读取的字段数
+     */
+    private final int storedCount;
+
+    /**
+     * 各段的DocValues-key:段序号与字段下标，value：该段字段的DocValues
+     */
+    private final Map<Long,SortedSetDocValues> docValuesMap = new HashMap<Long,SortedSetDocValues>();
+
+    /**
+     * 复用的存储字段访问器
+     */
+    private final ProjectionVisitor visitor = new ProjectionVisitor();
+
+    /**
+     * @param reader	索引读取器
+     * @param doc		提取文档的模型 - 注：Model必须设置字段名
+     */
+    DocProjector(IndexReader reader, FieldModel[] doc){
+        this.leaves = reader.leaves();
+        this.doc = doc;
+        this.fromDocValues = new boolean[doc.length];
+        for(int i = 0; i < doc.length; i++){
+            FieldModel col = doc[i];
+            fromDocValues[i] = col.getFieldType() != null
+                    && col.getFieldType().docValuesType() == DocValuesType.SORTED_SET
+                    && !col.getHighlightFlag();
+            if(!fromDocValues[i] && !storedSlots.containsKey(col.getFieldName())){
+                storedSlots.put(col.getFieldName(), i);
+            }
+        }
+        this.storedCount = storedSlots.size();
+    }
+
+    /**
+     * 加载文档的投影字段值
+     * @param docId		文档号
+     * @return			与模型顺序一致的字段值，字段不存在时为null
+     * @throws IOException
+     */
+    String[] load(int docId) throws IOException{
+        String[] values = new String[doc.length];
+        if(storedCount > 0){
+            visitor.reset(values);
+            int leafIndex = ReaderUtil.subIndex(docId, leaves);
+            LeafReaderContext leaf = leaves.get(leafIndex);
+            leaf.reader().document(docId - leaf.docBase, visitor);
+        }
+        for(int i = 0; i < doc.length; i++){
+            if(fromDocValues[i]){
+                values[i] = loadDocValue(docId, i);
+            }else if(values[i] == null){
+                //同名字段共享同一个值
+                Integer slot = storedSlots.get(doc[i].getFieldName());
+                values[i] = values[slot];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 从DocValues读取字段值-多值时取第一个
+     */
+    private String loadDocValue(int docId, int col) throws IOException{
+        int leafIndex = ReaderUtil.subIndex(docId, leaves);
+        long key = ((long) leafIndex << 32) | col;
+        SortedSetDocValues dv = docValuesMap.get(key);
+        if(dv == null){
+            dv = DocValues.getSortedSet(leaves.get(leafIndex).reader(), doc[col].getFieldName());
+            docValuesMap.put(key, dv);
+        }
+        dv.setDocument(docId - leaves.get(leafIndex).docBase);
+        long ord = dv.nextOrd();
+        if(ord == SortedSetDocValues.NO_MORE_ORDS){
+            return null;
+        }
+        BytesRef term = dv.lookupOrd(ord);
+        return term.utf8ToString();
+    }
+
+    /**
+     * 存储字段访问器-只接收投影字段，读齐后停止
+     */
+    private class ProjectionVisitor extends StoredFieldVisitor{
+        private String[] values;
+        private int remaining;
+
+        void reset(String[] values){
+            this.values = values;
+            this.remaining = storedCount;
+        }
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) throws IOException {
+            if(remaining == 0){
+                return Status.STOP;
+            }
+            Integer slot = storedSlots.get(fieldInfo.name);
+            return slot != null && values[slot] == null ? Status.YES : Status.NO;
+        }
+
+        @Override
+        public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
+            set(fieldInfo, new String(value, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void intField(FieldInfo fieldInfo, int value) throws IOException {
+            set(fieldInfo, String.valueOf(value));
+        }
+
+        @Override
+        public void longField(FieldInfo fieldInfo, long value) throws IOException {
+            set(fieldInfo, String.valueOf(value));
+        }
+
+        @Override
+        public void floatField(FieldInfo fieldInfo, float value) throws IOException {
+            set(fieldInfo, String.valueOf(value));
+        }
+
+        @Override
+        public void doubleField(FieldInfo fieldInfo, double value) throws IOException {
+            set(fieldInfo, String.valueOf(value));
+        }
+
+        private void set(FieldInfo fieldInfo, String value){
+            Integer slot = storedSlots.get(fieldInfo.name);
+            if(values[slot] == null){
+                values[slot] = value;
+                remaining--;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.SimpleCollector;
+
+import java.io.IOException;
+
+/**
+ * 流式导出收集器
+ * 描述：按索引顺序逐条投影命中的文档并交给命中处理器，不计算评分、不排序，内存占用与命中数无关
+ * @author @AWS
+ *
+ */
+class ExportCollector extends SimpleCollector {
+    /**
+     * 处理器要求停止或处理失败时抛出，用于结束整个搜索(CollectionTerminatedException只结束当前段)
+     */
+    static final class StopException extends RuntimeException{
+        private static final long serialVersionUID = 1L;
+
+        StopException(Throwable cause){
+            super(null, cause, false, false);
+        }
+    }
+
+    private final DocProjector projector;
+    private final FieldModel[] doc;
+    private final HitHandler handler;
+    private int docBase;
+    private long count;
+
+    /**
+     * @param reader		索引读取器
+     * @param doc			提取文档的模型 - 注：Model必须设置字段名
+     * @param handler		命中处理器
+     */
+    ExportCollector(IndexReader reader, FieldModel[] doc, HitHandler handler){
+        this.projector = new DocProjector(reader, doc);
+        this.doc = doc;
+        this.handler = handler;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        this.docBase = context.docBase;
+    }
+
+    @Override
+    public void collect(int docId) throws IOException {
+        String[] values = projector.load(docBase + docId);
+        FieldModel[] resDoc = new FieldModel[doc.length];
+        for(int i = 0; i < doc.length; i++){
+            FieldModel col = doc[i];
+            resDoc[i] = new FieldModel(col.getFieldName(), values[i],
+                    col.getFieldType(), col.getIdFlag(), col.getHighlightFlag());
+        }
+        count++;
+        boolean more;
+        try{
+            more = handler.onHit(resDoc);
+        }catch(Exception e){
+            throw new StopException(e);
+        }
+        if(!more){
+            throw new StopException(null);
+        }
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    /**
+     * 已交给处理器的命中数
+     */
+    long getCount(){
+        return count;
+    }
+}
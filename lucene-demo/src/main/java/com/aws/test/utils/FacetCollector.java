@@ -0,0 +1,129 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.SimpleCollector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面统计收集器
+ * 描述：与结果收集器在同一次遍历中，按段读取关键字域的SortedSet DocValues累加各取值的命中数，
+ * 段内按序号计数，换段时再转换为取值文本，不读取任何存储字段
+ * @author @AWS
+ *
+ */
+class FacetCollector extends SimpleCollector {
+    private final String[] facetFields;
+
+    /**
+     * 当前段各分面域的DocValues
+     */
+    private final SortedSetDocValues[] segmentValues;
+
+    /**
+     * 当前段各分面域按序号的命中数
+     */
+    private final int[][] segmentCounts;
+
+    /**
+     * 各分面域按取值的命中数-key:取值，value：命中数
+     */
+    private final List<Map<String,Integer>> totals;
+
+    /**
+     * @param facetFields	分面域名-须以STRING_FIELD_TYPE_STORED_DOC_VALUES或STRING_FIELD_TYPE_DOC_VALUES建立索引
+     */
+    FacetCollector(String[] facetFields){
+        this.facetFields = facetFields;
+        this.segmentValues = new SortedSetDocValues[facetFields.length];
+        this.segmentCounts = new int[facetFields.length][];
+        this.totals = new ArrayList<Map<String,Integer>>(facetFields.length);
+        for(int i = 0; i < facetFields.length; i++){
+            totals.add(new HashMap<String,Integer>());
+        }
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        flushSegment();
+        for(int i = 0; i < facetFields.length; i++){
+            SortedSetDocValues dv = DocValues.getSortedSet(context.reader(), facetFields[i]);
+            segmentValues[i] = dv;
+            segmentCounts[i] = new int[(int) dv.getValueCount()];
+        }
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        for(int i = 0; i < facetFields.length; i++){
+            SortedSetDocValues dv = segmentValues[i];
+            dv.setDocument(doc);
+            int[] counts = segmentCounts[i];
+            for(long ord = dv.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = dv.nextOrd()){
+                counts[(int) ord]++;
+            }
+        }
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    /**
+     * 获取分面统计结果
+     * @param maxValues		每个分面域最多返回的取值数，按命中数降序
+     * @return				key:分面域名，value：取值及命中数
+     */
+    Map<String,Map<String,Integer>> getCounts(int maxValues){
+        flushSegment();
+        Map<String,Map<String,Integer>> res = new LinkedHashMap<String,Map<String,Integer>>();
+        for(int i = 0; i < facetFields.length; i++){
+            List<Map.Entry<String,Integer>> entries = new ArrayList<Map.Entry<String,Integer>>(totals.get(i).entrySet());
+            Collections.sort(entries, new Comparator<Map.Entry<String,Integer>>() {
+                @Override
+                public int compare(Map.Entry<String,Integer> a, Map.Entry<String,Integer> b) {
+                    int c = b.getValue().compareTo(a.getValue());
+                    return c != 0 ? c : a.getKey().compareTo(b.getKey());
+                }
+            });
+            Map<String,Integer> fieldCounts = new LinkedHashMap<String,Integer>();
+            for(int j = 0; j < entries.size() && j < maxValues; j++){
+                fieldCounts.put(entries.get(j).getKey(), entries.get(j).getValue());
+            }
+            res.put(facetFields[i], fieldCounts);
+        }
+        return res;
+    }
+
+    /**
+     * 将当前段的序号计数转换为取值计数
+     */
+    private void flushSegment(){
+        for(int i = 0; i < facetFields.length; i++){
+            int[] counts = segmentCounts[i];
+            if(counts == null){
+                continue;
+            }
+            Map<String,Integer> fieldTotals = totals.get(i);
+            for(int ord = 0; ord < counts.length; ord++){
+                if(counts[ord] > 0){
+                    String value = segmentValues[i].lookupOrd(ord).utf8ToString();
+                    Integer old = fieldTotals.get(value);
+                    fieldTotals.put(value, old == null ? counts[ord] : old + counts[ord]);
+                }
+            }
+            segmentCounts[i] = null;
+            segmentValues[i] = null;
+        }
+    }
+}
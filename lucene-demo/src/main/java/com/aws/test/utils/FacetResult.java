@@ -0,0 +1,51 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面搜索结果
+ * 描述：前N条文档模型结果集、匹配总数及各分面域的取值命中数
+ * @author @AWS
+ *
+ */
+public class FacetResult {
+    /**
+     * 文档模型结果集
+     */
+    private final List<FieldModel[]> docs;
+    /**
+     * 匹配查询的总条数
+     */
+    private final int totalHits;
+    /**
+     * 分面统计-key:分面域名，value：取值及命中数(按命中数降序)
+     */
+    private final Map<String,Map<String,Integer>> facetCounts;
+
+    FacetResult(List<FieldModel[]> docs, int totalHits, Map<String,Map<String,Integer>> facetCounts){
+        this.docs = docs;
+        this.totalHits = totalHits;
+        this.facetCounts = facetCounts;
+    }
+
+    public List<FieldModel[]> getDocs() {
+        return docs;
+    }
+    public int getTotalHits() {
+        return totalHits;
+    }
+    public Map<String,Map<String,Integer>> getFacetCounts() {
+        return facetCounts;
+    }
+    /**
+     * 获取单个分面域的取值命中数
+     * @param facetField	分面域名
+     * @return
+     */
+    public Map<String,Integer> getFacetCounts(String facetField) {
+        return facetCounts.get(facetField);
+    }
+}
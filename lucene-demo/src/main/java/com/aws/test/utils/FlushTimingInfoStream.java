@@ -0,0 +1,64 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.util.InfoStream;
+
+/**
+ * 段刷写(flush)计时
+ * 描述：Lucene 5.3没有刷写回调，只在DWPT组件的诊断信息中标出一次刷写的开始与结束，两条信息由执行刷写的线程先后输出；
+ * 只启用DWPT组件，该组件仅在刷写时输出，不影响逐条写入的开销。
+ * 无论刷写由内存缓冲写满、刷新还是提交触发都会被记录
+ * @author @AWS
+ *
+ */
+class FlushTimingInfoStream extends InfoStream {
+    private static final String COMPONENT = "DWPT";
+
+    private static final String FLUSH_START = "flush postings as segment ";
+
+    private static final String FLUSH_END = "flushed: segment=";
+
+    private final LuceneMetrics metrics;
+
+    private final String indexPath;
+
+    /**
+     * 当前线程正在进行的刷写开始时间，0表示没有
+     */
+    private final ThreadLocal<long[]> flushStart = new ThreadLocal<long[]>(){
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    /**
+     * @param metrics		运行指标注册表
+     * @param indexPath		索引存储路径
+     */
+    FlushTimingInfoStream(LuceneMetrics metrics, String indexPath){
+        this.metrics = metrics;
+        this.indexPath = indexPath;
+    }
+
+    @Override
+    public void message(String component, String message) {
+        if(message.startsWith(FLUSH_START)){
+            flushStart.get()[0] = System.nanoTime();
+        }else if(message.startsWith(FLUSH_END)){
+            long[] start = flushStart.get();
+            if(start[0] != 0){
+                metrics.record(indexPath, IndexMetrics.Op.FLUSH, start[0]);
+                start[0] = 0;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled(String component) {
+        return COMPONENT.equals(component);
+    }
+
+    @Override
+    public void close() {
+    }
+}
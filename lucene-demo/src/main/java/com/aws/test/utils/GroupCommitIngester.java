@@ -0,0 +1,428 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 组提交写入器
+ * 描述：异步写入操作按索引目录排队，由后台线程按批次大小或等待时间合并为一次commit，
+ * 批次提交(持久化)后统一完成该批次内所有写入的Future；队列满时拒绝写入以向调用方施加背压
+ * @author @AWS
+ *
+ */
+class GroupCommitIngester {
+    /**
+     * 默认单批次最大写入操作数
+     */
+    public static final int DEFAULT_MAX_BATCH_OPS = 1000;
+
+    /**
+     * 默认批次最长等待时间(毫秒)
+     */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 50L;
+
+    /**
+     * 默认每个索引目录的写入队列容量
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /**
+     * 写入队列空闲多久后释放后台线程(毫秒)
+     */
+    private static final long IDLE_MILLIS = 1000L;
+
+    /**
+     * 写入操作类型
+     */
+    enum OpType{
+        ADD, UPDATE, DELETE
+    }
+
+    /**
+     * 待提交的写入操作
+     */
+    private static class PendingOp{
+        private final OpType type;
+        /**
+         * 提交时构建好的文档(新增、修改)
+         */
+        private final Document[] documents;
+        /**
+         * 主键(修改、删除)
+         */
+        private final Term[] terms;
+        private final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        /**
+         * 多文档修改中部分文档失败时的异常，批次提交后以该异常完成Future
+         */
+        private PartialWriteException partialFailure;
+
+        private PendingOp(OpType type, Document[] documents, Term[] terms){
+            this.type = type;
+            this.documents = documents;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * 索引目录的写入通道
+     */
+    private class Lane implements Runnable{
+        private final String indexPath;
+        private final BlockingQueue<PendingOp> queue;
+        /**
+         * 是否已有后台线程在消费队列
+         */
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        /**
+         * 已提交但尚未完成(排队中或提交中)的写入操作数
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Lane(String indexPath, int capacity){
+            this.indexPath = indexPath;
+            this.queue = new ArrayBlockingQueue<PendingOp>(capacity);
+        }
+
+        @Override
+        public void run() {
+            List<PendingOp> batch = new ArrayList<PendingOp>();
+            while(true){
+                PendingOp first;
+                try{
+                    first = queue.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    first = null;
+                }
+                if(first == null){
+                    //释放线程，释放后若又有写入且未被其他线程接管则继续消费
+                    running.set(false);
+                    if(queue.isEmpty() || !running.compareAndSet(false, true)){
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                commit(batch);
+                batch.clear();
+            }
+        }
+
+        /**
+         * 在批次大小和等待时间内收集更多写入
+         * @param batch		当前批次
+         */
+        private void collect(List<PendingOp> batch){
+            int maxOps = maxBatchOps;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+            try{
+                while(batch.size() < maxOps){
+                    long remaining = deadline - System.nanoTime();
+                    if(remaining <= 0){
+                        queue.drainTo(batch, maxOps - batch.size());
+                        break;
+                    }
+                    PendingOp op = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if(op == null){
+                        break;
+                    }
+                    batch.add(op);
+                }
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 写入批次并提交事务，完成批次内所有Future
+         * @param batch		当前批次
+         */
+        private void commit(List<PendingOp> batch){
+            //单个写入失败只完成该写入的Future，不回滚共享的写入器，不影响批次内其他写入
+            List<PendingOp> applied = new ArrayList<PendingOp>(batch.size());
+            LuceneUtil.acquireIndex(indexPath);
+            try{
+                IndexWriter iw = LuceneUtil.getIndexWriter(indexPath);
+                for(PendingOp op : batch){
+                    try{
+                        apply(iw, op);
+                        applied.add(op);
+                    }catch(Exception e){
+                        e.printStackTrace();
+                        op.future.completeExceptionally(new RuntimeException("写入索引失败", e));
+                    }
+                }
+                //提交事务
+                LuceneUtil.commit(indexPath, iw);
+                LuceneUtil.refreshAfterCommit(indexPath);
+            }catch(Exception e){
+                e.printStackTrace();
+                RuntimeException ex = new RuntimeException("批量提交索引失败", e);
+                for(PendingOp op : batch){
+                    op.future.completeExceptionally(ex);
+                }
+                inFlight.addAndGet(-batch.size());
+                return;
+            }finally{
+                LuceneUtil.releaseIndex(indexPath);
+            }
+            for(PendingOp op : applied){
+                if(op.partialFailure != null){
+                    op.future.completeExceptionally(op.partialFailure);
+                }else{
+                    op.future.complete(null);
+                }
+            }
+            inFlight.addAndGet(-batch.size());
+        }
+    }
+
+    /**
+     * 写入通道容器-key:索引存放目录，value：目录的写入通道
+     */
+    private final ConcurrentMap<String,Lane> laneMap = new ConcurrentHashMap<String,Lane>();
+
+    /**
+     * 消费写入通道的后台线程池
+     */
+    private final ExecutorService committer;
+
+    private volatile int maxBatchOps = DEFAULT_MAX_BATCH_OPS;
+
+    private volatile long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+
+    private final int queueCapacity;
+
+    /**
+     * 是否已关闭-关闭后拒绝新的写入
+     */
+    private volatile boolean shutdown;
+
+    GroupCommitIngester(){
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    GroupCommitIngester(int queueCapacity){
+        if(queueCapacity <= 0){
+            throw new IllegalArgumentException("写入队列容量必须大于0！");
+        }
+        this.queueCapacity = queueCapacity;
+        final AtomicInteger threadNo = new AtomicInteger();
+        this.committer = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "lucene-group-commit-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * 提交写入操作
+     * @param indexPath		索引存储位置
+     * @param type			写入操作类型
+     * @param docs			文档模型（删除时为主键模型）
+     * @return				所在批次提交后完成的Future
+     * @throws RejectedExecutionException	写入队列已满
+     */
+    CompletableFuture<Void> submit(String indexPath, OpType type, FieldModel[][] docs){
+        if(shutdown){
+            throw new RejectedExecutionException("索引写入器已关闭！");
+        }
+        //提交时构建文档并校验主键，非法的写入直接拒绝，不进入批次
+        PendingOp op = prepare(type, docs);
+        Lane lane = laneMap.get(indexPath);
+        if(lane == null){
+            Lane newLane = new Lane(indexPath, queueCapacity);
+            lane = laneMap.putIfAbsent(indexPath, newLane);
+            if(lane == null){
+                lane = newLane;
+            }
+        }
+        lane.inFlight.incrementAndGet();
+        if(!lane.queue.offer(op)){
+            lane.inFlight.decrementAndGet();
+            throw new RejectedExecutionException("索引写入队列已满！" + indexPath);
+        }
+        if(lane.running.compareAndSet(false, true)){
+            committer.execute(lane);
+        }
+        return op.future;
+    }
+
+    /**
+     * 设置组提交策略
+     * @param maxBatchOps		单批次最大写入操作数
+     * @param maxDelayMillis	批次最长等待时间(毫秒)
+     */
+    void setPolicy(int maxBatchOps, long maxDelayMillis){
+        if(maxBatchOps <= 0 || maxDelayMillis < 0){
+            throw new IllegalArgumentException("组提交参数不合法！");
+        }
+        this.maxBatchOps = maxBatchOps;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * 获取索引目录等待提交的写入操作数
+     * @param indexPath		索引存储位置
+     * @return
+     */
+    int pendingCount(String indexPath){
+        Lane lane = laneMap.get(indexPath);
+        return lane == null ? 0 : lane.queue.size();
+    }
+
+    /**
+     * 获取索引目录已提交但尚未完成(排队中或提交中)的写入操作数
+     * @param indexPath		索引存储位置
+     * @return
+     */
+    int inFlightCount(String indexPath){
+        Lane lane = laneMap.get(indexPath);
+        return lane == null ? 0 : lane.inFlight.get();
+    }
+
+    /**
+     * 关闭并排空-拒绝新的写入，等待已提交的写入全部完成
+     * @param timeoutMillis		最长等待时间(毫秒)
+     * @return					是否在超时前全部完成
+     */
+    boolean drain(long timeoutMillis){
+        shutdown = true;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for(Lane lane : laneMap.values()){
+            while(lane.inFlight.get() > 0){
+                if(System.currentTimeMillis() >= deadline){
+                    return false;
+                }
+                try{
+                    Thread.sleep(10L);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 构建待提交的写入操作
+     * @param type		写入操作类型
+     * @param docs		文档模型（删除时为主键模型）
+     * @return
+     */
+    private static PendingOp prepare(OpType type, FieldModel[][] docs){
+        switch(type){
+            case ADD:{
+                Document[] documents = new Document[docs.length];
+                for(int i = 0; i < docs.length; i++){
+                    documents[i] = LuceneUtil.buildDocument(docs[i]);
+                }
+                return new PendingOp(type, documents, null);
+            }
+            case UPDATE:{
+                //修改必须依据主键
+                Document[] documents = new Document[docs.length];
+                Term[] terms = new Term[docs.length];
+                for(int i = 0; i < docs.length; i++){
+                    terms[i] = LuceneUtil.getIdTerm(docs[i]);
+                    if(terms[i] == null){
+                        throw new IllegalArgumentException("文档缺少主键模型！");
+                    }
+                    documents[i] = LuceneUtil.buildDocument(docs[i]);
+                }
+                return new PendingOp(type, documents, terms);
+            }
+            case DELETE:{
+                List<Term> terms = new ArrayList<Term>();
+                for(FieldModel idCol : docs[0]){
+                    if(idCol.getIdFlag()){
+                        terms.add(new Term(idCol.getFieldName(), idCol.getFieldValue()));
+                    }
+                }
+                return new PendingOp(type, null, terms.toArray(new Term[terms.size()]));
+            }
+            default:
+                throw new IllegalStateException("未知的写入操作类型：" + type);
+        }
+    }
+
+    /**
+     * 将写入操作应用到写入器(不提交)-按提交顺序逐个应用，同一主键以最后一次操作为准；
+     * 多文档修改逐个文档生效，失败的文档保持原状，只有部分失败时记为部分失败，全部失败时抛出异常
+     * @param iw		索引写入器
+     * @param op		写入操作
+     * @throws Exception
+     */
+    private static void apply(IndexWriter iw, PendingOp op) throws Exception{
+        switch(op.type){
+            case ADD:
+                if(op.documents.length == 1){
+                    iw.addDocument(op.documents[0]);
+                }else{
+                    //一次调用的多个文档整体写入，失败时全部不写入
+                    iw.addDocuments(Arrays.asList(op.documents));
+                }
+                break;
+            case UPDATE:{
+                //写入器不支持多主键的原子替换，逐个修改并记录失败的文档
+                List<Integer> failed = null;
+                Exception firstFailure = null;
+                for(int i = 0; i < op.documents.length; i++){
+                    try{
+                        iw.updateDocument(op.terms[i], op.documents[i]);
+                    }catch(Exception e){
+                        if(failed == null){
+                            failed = new ArrayList<Integer>();
+                            firstFailure = e;
+                        }else{
+                            firstFailure.addSuppressed(e);
+                        }
+                        failed.add(i);
+                    }
+                }
+                if(failed != null){
+                    if(failed.size() == op.documents.length){
+                        throw firstFailure;
+                    }
+                    int[] failedIndexes = new int[failed.size()];
+                    for(int i = 0; i < failedIndexes.length; i++){
+                        failedIndexes[i] = failed.get(i);
+                    }
+                    op.partialFailure = new PartialWriteException(failedIndexes, firstFailure);
+                }
+                break;
+            }
+            case DELETE:
+                if(op.terms.length > 0){
+                    iw.deleteDocuments(op.terms);
+                }
+                break;
+            default:
+                throw new IllegalStateException("未知的写入操作类型：" + op.type);
+        }
+    }
+}
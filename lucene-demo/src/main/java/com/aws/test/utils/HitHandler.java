@@ -0,0 +1,19 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+
+/**
+ * 命中处理器
+ * 描述：流式导出时逐条接收匹配的文档，文档按索引顺序到达，处理完即可丢弃，不在内存中累积结果集
+ * @author @AWS
+ *
+ */
+public interface HitHandler {
+    /**
+     * 处理一条命中的文档
+     * @param doc		按提取模型投影的文档模型
+     * @return			是否继续，返回false时立即结束导出
+     * @throws Exception	抛出时结束导出并向调用方抛出
+     */
+    boolean onHit(FieldModel[] doc) throws Exception;
+}
@@ -0,0 +1,247 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.highlight.DefaultEncoder;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.postingshighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.postingshighlight.Passage;
+import org.apache.lucene.search.postingshighlight.PassageFormatter;
+import org.apache.lucene.search.postingshighlight.PostingsHighlighter;
+import org.apache.lucene.search.vectorhighlight.FastVectorHighlighter;
+import org.apache.lucene.search.vectorhighlight.FieldQuery;
+import org.apache.lucene.search.vectorhighlight.FragListBuilder;
+import org.apache.lucene.search.vectorhighlight.FragmentsBuilder;
+import org.apache.lucene.search.vectorhighlight.SimpleFragListBuilder;
+import org.apache.lucene.search.vectorhighlight.SimpleFragmentsBuilder;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 命中结果高亮器
+ * 描述：按字段的索引方式选择高亮实现，一次搜索的所有命中共用：
+ * 索引了偏移量的字段使用PostingsHighlighter，存储了词向量(含位置与偏移)的字段使用FastVectorHighlighter，
+ * 两者都直接使用索引中的偏移量，耗时与匹配数相关而与文本长度无关；其余字段退化为对存储值重新分词的Highlighter
+ * @author @AWS
+ *
+ */
+class HitHighlighter {
+    /**
+     * 高亮开始标签
+     */
+    static final String PRE_TAG = "<font color='red'>";
+
+    /**
+     * 高亮结束标签
+     */
+    static final String POST_TAG = "</font>";
+
+    /**
+     * 高亮片段长度(字符)-与Highlighter默认片段长度一致
+     */
+    private static final int FRAGMENT_SIZE = 100;
+
+    /**
+     * 字段的高亮方式
+     */
+    enum Mode{
+        /**
+         * 基于倒排表偏移量
+         */
+        POSTINGS,
+        /**
+         * 基于词向量
+         */
+        TERM_VECTORS,
+        /**
+         * 对存储值重新分词
+         */
+        ANALYZER
+    }
+
+    /**
+     * 基于倒排表偏移量的高亮器-无匹配时返回null，与Highlighter行为一致
+     */
+    private static final PostingsHighlighter POSTINGS_HIGHLIGHTER = new PostingsHighlighter() {
+        private final PassageFormatter formatter = new DefaultPassageFormatter(PRE_TAG, POST_TAG, "... ", false);
+
+        @Override
+        protected PassageFormatter getFormatter(String field) {
+            return formatter;
+        }
+
+        @Override
+        protected Passage[] getEmptyHighlight(String fieldName, BreakIterator bi, int maxPassages) {
+            return new Passage[0];
+        }
+    };
+
+    private final IndexSearcher is;
+    private final Query query;
+    private final Analyzer analyzer;
+    private final boolean offsetsEnabled;
+
+    /**
+     * 各字段的高亮方式
+     */
+    private final Map<String,Mode> modeMap = new HashMap<String,Mode>();
+
+    /**
+     * 倒排表高亮结果-key:字段名，value：与命中顺序一致的高亮结果
+     */
+    private Map<String,String[]> postingsResults;
+
+    /**
+     * 各字段的分词高亮器-QueryScorer按字段过滤查询词，不能跨字段复用
+     */
+    private Map<String,Highlighter> analyzerHighlighters;
+
+    private FastVectorHighlighter fvh;
+    private FieldQuery fieldQuery;
+    private FragListBuilder fragListBuilder;
+    private FragmentsBuilder fragmentsBuilder;
+
+    /**
+     * @param is				索引搜索器
+     * @param query				查询对象
+     * @param analyzer			分词器-重新分词高亮时使用
+     * @param offsetsEnabled	是否启用基于偏移量的高亮，false时所有字段重新分词
+     */
+    HitHighlighter(IndexSearcher is, Query query, Analyzer analyzer, boolean offsetsEnabled){
+        this.is = is;
+        this.query = query;
+        this.analyzer = analyzer;
+        this.offsetsEnabled = offsetsEnabled;
+    }
+
+    /**
+     * 一次性计算基于倒排表偏移量的高亮结果
+     * @param doc			提取文档的模型
+     * @param scoreDocs		命中的文档
+     * @throws Exception
+     */
+    void prepare(FieldModel[] doc, ScoreDoc[] scoreDocs) throws Exception{
+        List<String> postingsFields = new ArrayList<String>();
+        for(FieldModel col : doc){
+            if(col.getHighlightFlag() && mode(col.getFieldName()) == Mode.POSTINGS
+                    && !postingsFields.contains(col.getFieldName())){
+                postingsFields.add(col.getFieldName());
+            }
+        }
+        if(postingsFields.isEmpty() || scoreDocs.length == 0){
+            return;
+        }
+        int[] docIds = new int[scoreDocs.length];
+        for(int i = 0; i < scoreDocs.length; i++){
+            docIds[i] = scoreDocs[i].doc;
+        }
+        int[] maxPassages = new int[postingsFields.size()];
+        Arrays.fill(maxPassages, 1);
+        postingsResults = POSTINGS_HIGHLIGHTER.highlightFields(
+                postingsFields.toArray(new String[postingsFields.size()]), query, is, docIds, maxPassages);
+    }
+
+    /**
+     * 高亮字段值
+     * @param hitIndex		命中在结果集中的序号
+     * @param docId			命中的文档号
+     * @param colName		字段名
+     * @param colValue		字段的存储值
+     * @return				高亮后的字符串，无匹配时返回null
+     * @throws Exception
+     */
+    String highlight(int hitIndex, int docId, String colName, String colValue) throws Exception{
+        switch(mode(colName)){
+            case POSTINGS:
+                String[] values = postingsResults == null ? null : postingsResults.get(colName);
+                return values == null ? null : values[hitIndex];
+            case TERM_VECTORS:
+                if(fvh == null){
+                    fragListBuilder = new SimpleFragListBuilder();
+                    fragmentsBuilder = new SimpleFragmentsBuilder();
+                    fvh = new FastVectorHighlighter(true, true, fragListBuilder, fragmentsBuilder);
+                    fieldQuery = fvh.getFieldQuery(query, is.getIndexReader());
+                }
+                return fvh.getBestFragment(fieldQuery, is.getIndexReader(), docId, colName, FRAGMENT_SIZE,
+                        fragListBuilder, fragmentsBuilder, new String[]{PRE_TAG}, new String[]{POST_TAG},
+                        new DefaultEncoder());
+            default:
+                if(analyzerHighlighters == null){
+                    analyzerHighlighters = new HashMap<String,Highlighter>();
+                }
+                Highlighter highlighter = analyzerHighlighters.get(colName);
+                if(highlighter == null){
+                    highlighter = newAnalyzerHighlighter(query, colName);
+                    analyzerHighlighters.put(colName, highlighter);
+                }
+                TokenStream ts = analyzer.tokenStream(colName, colValue);
+                return highlighter.getBestFragment(ts, colValue);
+        }
+    }
+
+    /**
+     * 创建重新分词的高亮分析器
+     * @param query		查询对象
+     * @param colName	高亮字段名-建立索引时的域名
+     * @return			高亮分析器
+     */
+    static Highlighter newAnalyzerHighlighter(Query query, String colName){
+        //定制高亮标签
+        SimpleHTMLFormatter shf = new SimpleHTMLFormatter(PRE_TAG, POST_TAG);
+        //评分器-用于评分文本片段(基于查询词的数量)
+        QueryScorer qs = new QueryScorer(query,colName);
+        //高亮分析器
+        return new Highlighter(shf,qs);
+    }
+
+    /**
+     * 依据字段在索引中的信息确定高亮方式-所有段都满足条件时才使用偏移量
+     * @param colName		字段名
+     * @return
+     */
+    private Mode mode(String colName){
+        Mode mode = modeMap.get(colName);
+        if(mode == null){
+            mode = offsetsEnabled ? detectMode(is.getIndexReader(), colName) : Mode.ANALYZER;
+            modeMap.put(colName, mode);
+        }
+        return mode;
+    }
+
+    private static Mode detectMode(IndexReader reader, String colName){
+        boolean offsets = true;
+        boolean vectors = true;
+        boolean found = false;
+        for(LeafReaderContext ctx : reader.leaves()){
+            FieldInfo fi = ctx.reader().getFieldInfos().fieldInfo(colName);
+            if(fi == null){
+                continue;
+            }
+            found = true;
+            offsets &= fi.getIndexOptions() == IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS;
+            vectors &= fi.hasVectors();
+        }
+        if(!found){
+            return Mode.ANALYZER;
+        }
+        if(offsets){
+            return Mode.POSTINGS;
+        }
+        return vectors ? Mode.TERM_VECTORS : Mode.ANALYZER;
+    }
+}
@@ -0,0 +1,319 @@
+package com.aws.test.utils;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 索引生命周期管理器
+ * 描述：记录各索引目录的使用情况，写入与搜索期间持有租约；
+ * 打开的索引目录超过上限时按最近最少使用淘汰，空闲超时的索引目录由后台线程关闭，关闭前先提交，
+ * 被关闭的索引目录下次使用时重新打开
+ * @author @AWS
+ *
+ */
+class IndexLifecycleManager {
+    /**
+     * 默认打开的索引目录上限-0表示不限制
+     */
+    static final int DEFAULT_MAX_OPEN_INDEXES = 0;
+
+    /**
+     * 默认空闲超时(毫秒)-0表示不按空闲关闭
+     */
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 0L;
+
+    /**
+     * 空闲检查的最长间隔(毫秒)
+     */
+    private static final long MAX_CHECK_INTERVAL_MILLIS = 10000L;
+
+    /**
+     * 索引目录关闭器
+     */
+    interface IndexCloser{
+        /**
+         * 索引目录是否有未完成的写入(如异步写入队列)，有则不关闭
+         * @param indexPath		索引存储路径
+         * @return
+         */
+        boolean isBusy(String indexPath);
+
+        /**
+         * 提交并关闭索引目录的写入器与搜索器
+         * @param indexPath		索引存储路径
+         * @throws Exception
+         */
+        void close(String indexPath) throws Exception;
+    }
+
+    /**
+     * 租约状态：正在关闭-不再发放租约
+     */
+    private static final int CLOSING = -1;
+
+    /**
+     * 索引目录的使用情况
+     */
+    private static class Entry{
+        /**
+         * 持有的租约数，正在关闭时为CLOSING
+         */
+        private final AtomicInteger leases = new AtomicInteger();
+        /**
+         * 最后一次使用的时间
+         */
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+        /**
+         * 是否已关闭-关闭完成后唤醒等待的获取方
+         */
+        private boolean closed;
+    }
+
+    /**
+     * 使用情况容器-key:索引存放目录，value：目录的使用情况；获取与归还租约只做无锁计数，只在关闭时锁定单个目录
+     */
+    private final ConcurrentMap<String,Entry> entries = new ConcurrentHashMap<String,Entry>();
+
+    private final IndexCloser closer;
+
+    /**
+     * 后台关闭线程
+     */
+    private final ScheduledExecutorService maintainer;
+
+    private ScheduledFuture<?> idleTask;
+
+    private volatile int maxOpenIndexes = DEFAULT_MAX_OPEN_INDEXES;
+
+    private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+    IndexLifecycleManager(IndexCloser closer){
+        this.closer = closer;
+        this.maintainer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "lucene-index-lifecycle");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * 获取租约-索引目录正在关闭时等待关闭完成
+     * @param indexPath		索引存储路径
+     */
+    void acquire(String indexPath){
+        boolean created = false;
+        while(true){
+            Entry entry = entries.get(indexPath);
+            if(entry == null){
+                Entry newEntry = new Entry();
+                entry = entries.putIfAbsent(indexPath, newEntry);
+                if(entry == null){
+                    entry = newEntry;
+                    created = true;
+                }
+            }
+            int leases = entry.leases.get();
+            if(leases == CLOSING){
+                awaitClosed(entry);
+                continue;
+            }
+            if(entry.leases.compareAndSet(leases, leases + 1)){
+                entry.lastAccessMillis = System.currentTimeMillis();
+                break;
+            }
+        }
+        int max = maxOpenIndexes;
+        if(created && max > 0 && entries.size() > max){
+            //超出上限，后台淘汰最久未使用的索引目录，不阻塞当前调用
+            scheduleEvictOverCap();
+        }
+    }
+
+    /**
+     * 归还租约
+     * @param indexPath		索引存储路径
+     */
+    void release(String indexPath){
+        Entry entry = entries.get(indexPath);
+        if(entry != null && entry.leases.get() > 0){
+            entry.lastAccessMillis = System.currentTimeMillis();
+            entry.leases.decrementAndGet();
+        }
+    }
+
+    /**
+     * 设置打开的索引目录上限
+     * @param maxOpenIndexes	上限，0表示不限制
+     */
+    void setMaxOpenIndexes(int maxOpenIndexes){
+        if(maxOpenIndexes < 0){
+            throw new IllegalArgumentException("索引目录上限不能小于0！");
+        }
+        this.maxOpenIndexes = maxOpenIndexes;
+        scheduleEvictOverCap();
+    }
+
+    /**
+     * 设置空闲超时-超过该时间未使用的索引目录被提交并关闭
+     * @param idleTimeoutMillis		空闲超时(毫秒)，0表示不按空闲关闭
+     */
+    synchronized void setIdleTimeoutMillis(long idleTimeoutMillis){
+        if(idleTimeoutMillis < 0){
+            throw new IllegalArgumentException("空闲超时不能小于0！");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        if(idleTask != null){
+            idleTask.cancel(false);
+            idleTask = null;
+        }
+        if(idleTimeoutMillis > 0){
+            long interval = Math.max(1L, Math.min(idleTimeoutMillis / 2, MAX_CHECK_INTERVAL_MILLIS));
+            idleTask = maintainer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictIdle();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 关闭索引目录-有租约或未完成的写入时不关闭
+     * @param indexPath		索引存储路径
+     * @return				是否已关闭
+     */
+    boolean close(String indexPath){
+        Entry entry = entries.get(indexPath);
+        if(entry == null || entry.leases.get() != 0 || closer.isBusy(indexPath)){
+            return false;
+        }
+        //没有租约时才能进入关闭状态，之后的获取方等待关闭完成
+        if(!entry.leases.compareAndSet(0, CLOSING)){
+            return false;
+        }
+        try{
+            closer.close(indexPath);
+        }catch(Exception e){
+            e.printStackTrace();
+        }finally{
+            entries.remove(indexPath, entry);
+            synchronized (entry) {
+                entry.closed = true;
+                entry.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 关闭全部索引目录并停止后台线程-等待租约归还
+     * @param timeoutMillis		每个索引目录等待租约归还的最长时间(毫秒)
+     */
+    void shutdown(long timeoutMillis){
+        maintainer.shutdownNow();
+        List<String> paths = new ArrayList<String>(entries.keySet());
+        for(String indexPath : paths){
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while(!close(indexPath) && entries.containsKey(indexPath) && System.currentTimeMillis() < deadline){
+                try{
+                    Thread.sleep(10L);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 等待索引目录关闭完成
+     * @param entry		正在关闭的使用情况
+     */
+    private static void awaitClosed(Entry entry){
+        synchronized (entry) {
+            while(!entry.closed){
+                try{
+                    entry.wait();
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("等待索引关闭时被中断!");
+                }
+            }
+        }
+    }
+
+    private void scheduleEvictOverCap(){
+        try{
+            maintainer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    evictOverCap();
+                }
+            });
+        }catch(RejectedExecutionException e){
+            //已关闭，不再淘汰
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的空闲索引目录直到不超过上限
+     */
+    private void evictOverCap(){
+        int max = maxOpenIndexes;
+        int excess = max > 0 ? entries.size() - max : 0;
+        if(excess <= 0){
+            return;
+        }
+        //记录快照时的最后使用时间再排序，最久未使用的在最前
+        List<Map.Entry<String,Long>> idle = new ArrayList<Map.Entry<String,Long>>();
+        for(Map.Entry<String,Entry> e : entries.entrySet()){
+            if(e.getValue().leases.get() == 0){
+                idle.add(new AbstractMap.SimpleImmutableEntry<String,Long>(e.getKey(), e.getValue().lastAccessMillis));
+            }
+        }
+        Collections.sort(idle, new Comparator<Map.Entry<String,Long>>() {
+            @Override
+            public int compare(Map.Entry<String,Long> a, Map.Entry<String,Long> b) {
+                return a.getValue().compareTo(b.getValue());
+            }
+        });
+        for(int i = 0; i < idle.size() && excess > 0; i++){
+            if(close(idle.get(i).getKey())){
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * 关闭空闲超时的索引目录
+     */
+    private void evictIdle(){
+        long expireBefore = System.currentTimeMillis() - idleTimeoutMillis;
+        List<String> candidates = new ArrayList<String>();
+        for(Map.Entry<String,Entry> e : entries.entrySet()){
+            Entry entry = e.getValue();
+            if(entry.leases.get() == 0 && entry.lastAccessMillis < expireBefore){
+                candidates.add(e.getKey());
+            }
+        }
+        for(String indexPath : candidates){
+            close(indexPath);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.index.IndexWriter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 索引目录运行指标
+ * 描述：按操作类型记录延迟直方图，并在读取时从写入器与当前搜索器采集段数、内存缓冲等即时值
+ * @author @AWS
+ *
+ */
+class IndexMetrics implements IndexMetricsMXBean {
+    /**
+     * 计时的操作类型
+     */
+    enum Op{
+        ADD, UPDATE, DELETE, SEARCH, HIGHLIGHT, COUNT, COMMIT, FLUSH, REFRESH
+    }
+
+    private final String indexPath;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Op.values().length];
+
+    private final LatencyHistogram refreshLag = new LatencyHistogram();
+
+    /**
+     * 最早一次尚未对搜索可见的写入时间(纳秒)，0表示没有
+     */
+    private final AtomicLong unrefreshedSince = new AtomicLong();
+
+    /**
+     * 正在进行的刷新开始前最早的未可见写入时间
+     */
+    private volatile long refreshingSince;
+
+    IndexMetrics(String indexPath){
+        this.indexPath = indexPath;
+        for(int i = 0; i < latencies.length; i++){
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 记录操作耗时
+     * @param op			操作类型
+     * @param startNanos	开始时间(System.nanoTime)
+     */
+    void record(Op op, long startNanos){
+        latencies[op.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 记录操作耗时
+     * @param op			操作类型
+     * @param nanos			耗时(纳秒)
+     */
+    void recordNanos(Op op, long nanos){
+        latencies[op.ordinal()].record(nanos);
+    }
+
+    /**
+     * 标记有新的写入-用于计算刷新延迟
+     */
+    void markWrite(){
+        if(unrefreshedSince.get() == 0){
+            unrefreshedSince.compareAndSet(0, System.nanoTime());
+        }
+    }
+
+    /**
+     * 刷新开始-之前的写入将由本次刷新变为可见
+     */
+    void beforeRefresh(){
+        refreshingSince = unrefreshedSince.getAndSet(0);
+    }
+
+    /**
+     * 刷新结束
+     * @param startNanos	刷新开始时间
+     * @param didRefresh	是否打开了新的读取器
+     */
+    void afterRefresh(long startNanos, boolean didRefresh){
+        long since = refreshingSince;
+        refreshingSince = 0;
+        if(since != 0){
+            if(didRefresh){
+                refreshLag.record(System.nanoTime() - since);
+            }else{
+                //未刷新，写入仍不可见
+                unrefreshedSince.compareAndSet(0, since);
+            }
+        }
+        if(didRefresh){
+            record(Op.REFRESH, startNanos);
+        }
+    }
+
+    @Override
+    public String getIndexPath() {
+        return indexPath;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return LuceneUtil.getOpenIndexWriter(indexPath) != null;
+    }
+
+    @Override
+    public LatencyStats getAddLatency() {
+        return latencies[Op.ADD.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getUpdateLatency() {
+        return latencies[Op.UPDATE.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getDeleteLatency() {
+        return latencies[Op.DELETE.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getSearchLatency() {
+        return latencies[Op.SEARCH.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getHighlightLatency() {
+        return latencies[Op.HIGHLIGHT.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getCountLatency() {
+        return latencies[Op.COUNT.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getCommitLatency() {
+        return latencies[Op.COMMIT.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getFlushLatency() {
+        return latencies[Op.FLUSH.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getRefreshLatency() {
+        return latencies[Op.REFRESH.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencyStats getRefreshLag() {
+        return refreshLag.snapshot();
+    }
+
+    @Override
+    public int getSegmentCount() {
+        return LuceneUtil.getSegmentCount(indexPath);
+    }
+
+    @Override
+    public long getRamBufferBytes() {
+        IndexWriter iw = LuceneUtil.getOpenIndexWriter(indexPath);
+        return iw != null ? iw.ramBytesUsed() : 0;
+    }
+
+    @Override
+    public int getNumDocs() {
+        IndexWriter iw = LuceneUtil.getOpenIndexWriter(indexPath);
+        return iw != null ? iw.numDocs() : 0;
+    }
+
+    @Override
+    public int getMaxDoc() {
+        IndexWriter iw = LuceneUtil.getOpenIndexWriter(indexPath);
+        return iw != null ? iw.maxDoc() : 0;
+    }
+
+    @Override
+    public int getPendingWriteCount() {
+        return LuceneUtil.getPendingWriteCount(indexPath);
+    }
+
+    @Override
+    public void resetStatistics() {
+        for(LatencyHistogram latency : latencies){
+            latency.reset();
+        }
+        refreshLag.reset();
+    }
+}
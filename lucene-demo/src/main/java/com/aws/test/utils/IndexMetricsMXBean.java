@@ -0,0 +1,99 @@
+package com.aws.test.utils;
+
+/**
+ * 索引目录运行指标
+ * 描述：注册为JMX MBean(com.aws.test.utils:type=Index,name="索引存储路径")，延迟单位微秒
+ * @author @AWS
+ *
+ */
+public interface IndexMetricsMXBean {
+    /**
+     * 索引存储路径
+     */
+    String getIndexPath();
+
+    /**
+     * 写入器是否打开
+     */
+    boolean isOpen();
+
+    /**
+     * 新增索引(addIndex)延迟
+     */
+    LatencyStats getAddLatency();
+
+    /**
+     * 修改索引(updateIndex/writeBatch)延迟
+     */
+    LatencyStats getUpdateLatency();
+
+    /**
+     * 删除索引(deleteIndex)延迟
+     */
+    LatencyStats getDeleteLatency();
+
+    /**
+     * 搜索(search/searchPage/searchColumnar/searchWithFacets/export)延迟，含高亮
+     */
+    LatencyStats getSearchLatency();
+
+    /**
+     * 一次搜索中高亮全部命中的耗时
+     */
+    LatencyStats getHighlightLatency();
+
+    /**
+     * 计数(count)延迟
+     */
+    LatencyStats getCountLatency();
+
+    /**
+     * 提交耗时
+     */
+    LatencyStats getCommitLatency();
+
+    /**
+     * 段刷写(flush)耗时-将内存缓冲写出为新段，由缓冲写满、刷新或提交触发
+     */
+    LatencyStats getFlushLatency();
+
+    /**
+     * 刷新耗时-含将内存缓冲写出为新段(flush)与打开新读取器
+     */
+    LatencyStats getRefreshLatency();
+
+    /**
+     * 刷新延迟-写入到对搜索可见的时间
+     */
+    LatencyStats getRefreshLag();
+
+    /**
+     * 当前搜索器的段数
+     */
+    int getSegmentCount();
+
+    /**
+     * 写入器内存缓冲占用(字节)
+     */
+    long getRamBufferBytes();
+
+    /**
+     * 写入器中的文档数(含未提交)
+     */
+    int getNumDocs();
+
+    /**
+     * 写入器中的最大文档号(含已删除)
+     */
+    int getMaxDoc();
+
+    /**
+     * 异步写入队列中等待提交的操作数
+     */
+    int getPendingWriteCount();
+
+    /**
+     * 清空延迟统计
+     */
+    void resetStatistics();
+}
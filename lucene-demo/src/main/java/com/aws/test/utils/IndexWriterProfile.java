@@ -0,0 +1,134 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LiveIndexWriterConfig;
+import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * 索引写入器配置档
+ * 描述：按写入场景预设RAM缓冲、刷新文档数、复合文件、合并策略与合并线程数，
+ * 可在创建写入器时使用，也可对已打开的写入器在运行时切换
+ * @author @AWS
+ *
+ */
+public enum IndexWriterProfile {
+    /**
+     * 默认配置-与Lucene默认值一致
+     */
+    DEFAULT(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB, IndexWriterConfig.DISABLE_AUTO_FLUSH,
+            true, 0.1, 2, 10, 5 * 1024, ConcurrentMergeScheduler.AUTO_DETECT_MERGES_AND_THREADS, true),
+
+    /**
+     * 批量导入-大RAM缓冲、非复合文件、大段合并，合并线程数与CPU核数相当且不限速
+     * 适用：全量重建索引等大批量写入
+     */
+    BULK_LOAD(512, IndexWriterConfig.DISABLE_AUTO_FLUSH,
+            false, 0.0, 2, 20, 5 * 1024, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), false),
+
+    /**
+     * 近实时低延迟-小RAM缓冲、复合文件、小段尽快合并，少量合并线程以避免与搜索争抢资源
+     * 适用：写入量小、要求写入尽快可见的常态写入
+     */
+    NRT_LOW_LATENCY(16, IndexWriterConfig.DISABLE_AUTO_FLUSH,
+            true, 1.0, 0.5, 5, 1024, 1, true);
+
+    /**
+     * RAM缓冲大小(MB)
+     */
+    private final double ramBufferSizeMB;
+    /**
+     * 按文档数刷新的阈值，DISABLE_AUTO_FLUSH表示仅按RAM刷新
+     */
+    private final int maxBufferedDocs;
+    /**
+     * 新刷新的段是否使用复合文件
+     */
+    private final boolean useCompoundFile;
+    /**
+     * 合并后的段使用复合文件的比例上限
+     */
+    private final double noCFSRatio;
+    /**
+     * 最小段大小(MB)-小于该值的段视为同等大小参与合并
+     */
+    private final double floorSegmentMB;
+    /**
+     * 每层允许的段数
+     */
+    private final double segmentsPerTier;
+    /**
+     * 合并后段的最大大小(MB)
+     */
+    private final double maxMergedSegmentMB;
+    /**
+     * 合并线程数，AUTO_DETECT_MERGES_AND_THREADS表示自动探测
+     */
+    private final int mergeThreads;
+    /**
+     * 是否对合并I/O自动限速
+     */
+    private final boolean mergeIOThrottle;
+
+    IndexWriterProfile(double ramBufferSizeMB, int maxBufferedDocs, boolean useCompoundFile, double noCFSRatio,
+                       double floorSegmentMB, double segmentsPerTier, double maxMergedSegmentMB,
+                       int mergeThreads, boolean mergeIOThrottle){
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        this.maxBufferedDocs = maxBufferedDocs;
+        this.useCompoundFile = useCompoundFile;
+        this.noCFSRatio = noCFSRatio;
+        this.floorSegmentMB = floorSegmentMB;
+        this.segmentsPerTier = segmentsPerTier;
+        this.maxMergedSegmentMB = maxMergedSegmentMB;
+        this.mergeThreads = mergeThreads;
+        this.mergeIOThrottle = mergeIOThrottle;
+    }
+
+    /**
+     * 创建使用该配置档的写入器配置
+     * @param analyzer		分词器
+     * @return
+     */
+    public IndexWriterConfig newConfig(Analyzer analyzer){
+        IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
+        iwc.setMergeScheduler(new ConcurrentMergeScheduler());
+        applyTo(iwc);
+        return iwc;
+    }
+
+    /**
+     * 将配置档应用到写入器配置-可作用于已打开写入器的getConfig()，运行时生效
+     * @param config		写入器配置
+     */
+    public void applyTo(LiveIndexWriterConfig config){
+        config.setRAMBufferSizeMB(ramBufferSizeMB);
+        config.setMaxBufferedDocs(maxBufferedDocs);
+        config.setUseCompoundFile(useCompoundFile);
+
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setNoCFSRatio(noCFSRatio);
+        mergePolicy.setFloorSegmentMB(floorSegmentMB);
+        mergePolicy.setSegmentsPerTier(segmentsPerTier);
+        mergePolicy.setMaxMergeAtOnce((int) Math.max(2, segmentsPerTier));
+        mergePolicy.setMaxMergedSegmentMB(maxMergedSegmentMB);
+        config.setMergePolicy(mergePolicy);
+
+        MergeScheduler ms = config.getMergeScheduler();
+        if(ms instanceof ConcurrentMergeScheduler){
+            ConcurrentMergeScheduler cms = (ConcurrentMergeScheduler) ms;
+            if(mergeThreads == ConcurrentMergeScheduler.AUTO_DETECT_MERGES_AND_THREADS){
+                cms.setMaxMergesAndThreads(ConcurrentMergeScheduler.AUTO_DETECT_MERGES_AND_THREADS,
+                        ConcurrentMergeScheduler.AUTO_DETECT_MERGES_AND_THREADS);
+            }else{
+                cms.setMaxMergesAndThreads(mergeThreads + 5, mergeThreads);
+            }
+            if(mergeIOThrottle){
+                cms.enableAutoIOThrottle();
+            }else{
+                cms.disableAutoIOThrottle();
+            }
+        }
+    }
+}
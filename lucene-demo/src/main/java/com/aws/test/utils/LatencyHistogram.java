@@ -0,0 +1,125 @@
+package com.aws.test.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图
+ * 描述：按微秒对数分区计数(每个2的幂区间再等分为8个子区间)，记录只有几次无锁累加，适合在写入与搜索的热路径上常开；
+ * 分位数取所在子区间的上界(不超过最大值)，相对误差不超过12.5%
+ * @author @AWS
+ *
+ */
+class LatencyHistogram {
+    /**
+     * 每个2的幂区间的子区间位数
+     */
+    private static final int SUB_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * 可区分的最大指数-更长的延迟计入最后一个子区间(约19小时)
+     */
+    private static final int MAX_EXPONENT = 36;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder sumNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     * @param nanos		耗时(纳秒)
+     */
+    void record(long nanos){
+        if(nanos < 0){
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos / 1000));
+        sumNanos.add(nanos);
+        long max = maxNanos.get();
+        while(nanos > max && !maxNanos.compareAndSet(max, nanos)){
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 当前统计快照-统计期间的并发记录可能部分计入
+     * @return
+     */
+    LatencyStats snapshot(){
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxMicros = maxNanos.get() / 1000;
+        double meanMicros = total == 0 ? 0 : sumNanos.sum() / 1000.0 / total;
+        return new LatencyStats(total, meanMicros,
+                percentile(counts, total, 0.50, maxMicros),
+                percentile(counts, total, 0.90, maxMicros),
+                percentile(counts, total, 0.99, maxMicros),
+                percentile(counts, total, 0.999, maxMicros),
+                maxMicros);
+    }
+
+    /**
+     * 清空统计
+     */
+    void reset(){
+        for(int i = 0; i < BUCKETS; i++){
+            buckets.set(i, 0);
+        }
+        sumNanos.reset();
+        maxNanos.set(0);
+    }
+
+    /**
+     * 微秒值所在的子区间-小于8微秒时精确到1微秒
+     */
+    private static int bucketOf(long micros){
+        if(micros < SUB_BUCKETS){
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if(exponent > MAX_EXPONENT){
+            return BUCKETS - 1;
+        }
+        int mantissa = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * 子区间的上界(微秒)
+     */
+    private static long upperBoundOf(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int mantissa = bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BITS;
+        return ((long) (SUB_BUCKETS + mantissa + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxMicros){
+        if(total == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++){
+            seen += counts[i];
+            if(seen >= rank){
+                return Math.min(upperBoundOf(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+}
@@ -0,0 +1,65 @@
+package com.aws.test.utils;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 延迟统计
+ * 描述：某类操作的次数、平均值、分位数与最大值，单位微秒；作为JMX属性时映射为CompositeData
+ * @author @AWS
+ *
+ */
+public class LatencyStats {
+    private final long count;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public LatencyStats(long count, double meanMicros, long p50Micros, long p90Micros, long p99Micros,
+                        long p999Micros, long maxMicros){
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyStats{count=" + count + ", mean=" + String.format("%.1f", meanMicros) + "us, p50=" + p50Micros
+                + "us, p90=" + p90Micros + "us, p99=" + p99Micros + "us, p999=" + p999Micros + "us, max=" + maxMicros + "us}";
+    }
+}
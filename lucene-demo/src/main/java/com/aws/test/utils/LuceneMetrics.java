@@ -0,0 +1,140 @@
+package com.aws.test.utils;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 运行指标注册表
+ * 描述：每个索引目录首次记录指标时创建其IndexMetrics并注册为JMX MBean，索引目录关闭时移除并注销，同时注册全局MBean；
+ * 记录只在热路径上做一次Map查找与几次无锁累加
+ * @author @AWS
+ *
+ */
+class LuceneMetrics implements LuceneMetricsMXBean, NrtRefreshEngine.RefreshStatsListener {
+    /**
+     * MBean域名
+     */
+    static final String JMX_DOMAIN = "com.aws.test.utils";
+
+    /**
+     * 指标容器-key:索引存放目录，value：目录的运行指标
+     */
+    private final ConcurrentMap<String,IndexMetrics> metricsMap = new ConcurrentHashMap<String,IndexMetrics>();
+
+    LuceneMetrics(){
+        register(this, JMX_DOMAIN + ":type=LuceneUtil");
+    }
+
+    /**
+     * 获取索引目录的运行指标-不存在时创建并注册MBean
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    IndexMetrics forIndex(String indexPath){
+        IndexMetrics metrics = metricsMap.get(indexPath);
+        if(metrics == null){
+            IndexMetrics newMetrics = new IndexMetrics(indexPath);
+            metrics = metricsMap.putIfAbsent(indexPath, newMetrics);
+            if(metrics == null){
+                metrics = newMetrics;
+                register(metrics, JMX_DOMAIN + ":type=Index,name=" + ObjectName.quote(indexPath));
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 移除索引目录的运行指标并注销其MBean-索引目录关闭时调用
+     * @param indexPath		索引存储路径
+     */
+    void remove(String indexPath){
+        if(metricsMap.remove(indexPath) != null){
+            unregister(JMX_DOMAIN + ":type=Index,name=" + ObjectName.quote(indexPath));
+        }
+    }
+
+    /**
+     * 记录操作耗时
+     * @param indexPath		索引存储路径
+     * @param op			操作类型
+     * @param startNanos	开始时间(System.nanoTime)
+     */
+    void record(String indexPath, IndexMetrics.Op op, long startNanos){
+        forIndex(indexPath).record(op, startNanos);
+    }
+
+    /**
+     * 记录操作耗时
+     * @param indexPath		索引存储路径
+     * @param op			操作类型
+     * @param nanos			耗时(纳秒)
+     */
+    void recordNanos(String indexPath, IndexMetrics.Op op, long nanos){
+        forIndex(indexPath).recordNanos(op, nanos);
+    }
+
+    @Override
+    public void beforeRefresh(String indexPath) {
+        forIndex(indexPath).beforeRefresh();
+    }
+
+    @Override
+    public void afterRefresh(String indexPath, long startNanos, boolean didRefresh) {
+        forIndex(indexPath).afterRefresh(startNanos, didRefresh);
+    }
+
+    @Override
+    public int getOpenIndexCount() {
+        return LuceneUtil.getOpenIndexCount();
+    }
+
+    @Override
+    public List<String> getIndexPaths() {
+        List<String> paths = new ArrayList<String>(metricsMap.keySet());
+        Collections.sort(paths);
+        return paths;
+    }
+
+    @Override
+    public void resetStatistics() {
+        for(IndexMetrics metrics : metricsMap.values()){
+            metrics.resetStatistics();
+        }
+    }
+
+    /**
+     * 注销MBean-失败时只打印异常
+     */
+    private static void unregister(String name){
+        try{
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if(server.isRegistered(objectName)){
+                server.unregisterMBean(objectName);
+            }
+        }catch(Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 注册MBean-失败(如同名MBean已由其他类加载器注册)时只打印异常，不影响使用
+     */
+    private static void register(Object mbean, String name){
+        try{
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if(!server.isRegistered(objectName)){
+                server.registerMBean(mbean, objectName);
+            }
+        }catch(Exception e){
+            e.printStackTrace();
+        }
+    }
+}
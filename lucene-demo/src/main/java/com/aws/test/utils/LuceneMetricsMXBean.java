@@ -0,0 +1,26 @@
+package com.aws.test.utils;
+
+import java.util.List;
+
+/**
+ * 全局运行指标
+ * 描述：注册为JMX MBean(com.aws.test.utils:type=LuceneUtil)
+ * @author @AWS
+ *
+ */
+public interface LuceneMetricsMXBean {
+    /**
+     * 打开的索引目录数
+     */
+    int getOpenIndexCount();
+
+    /**
+     * 有运行指标的索引存储路径
+     */
+    List<String> getIndexPaths();
+
+    /**
+     * 清空全部索引目录的延迟统计
+     */
+    void resetStatistics();
+}
@@ -5,23 +5,28 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
-import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
-import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.search.highlight.Highlighter;
-import org.apache.lucene.search.highlight.QueryScorer;
-import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
 
 
 /**
@@ -56,6 +61,72 @@ public class LuceneUtil {
      */
     public static final FieldType STRING_FIELD_TYPE_NOT_STORED = StringField.TYPE_NOT_STORED;
 
+    /**
+     * Text域类型-(索引含偏移量、分词、存储)
+     * 适用：需要高亮的摘要、描述等长文本，高亮时直接使用倒排表中的偏移量，无需重新分词
+     */
+    public static final FieldType TEXT_FIELD_TYPE_STORED_OFFSETS = new FieldType(TextField.TYPE_STORED);
+
+    /**
+     * Text域类型-(索引、分词、存储，并存储含位置与偏移量的词向量)
+     * 适用：需要高亮且需要短语高亮的长文本，高亮时使用词向量，无需重新分词
+     */
+    public static final FieldType TEXT_FIELD_TYPE_STORED_TERM_VECTORS = new FieldType(TextField.TYPE_STORED);
+
+    /**
+     * 字符串域类型-(索引、不分词、存储，并建立SortedSet DocValues)
+     * 适用：分类、状态等短关键字，提取时可直接从DocValues读取
+     */
+    public static final FieldType STRING_FIELD_TYPE_STORED_DOC_VALUES = new FieldType(StringField.TYPE_STORED);
+
+    /**
+     * 字符串域类型-(索引、不分词、不存储，并建立SortedSet DocValues)
+     * 适用：分类、状态等短关键字，提取时只从DocValues读取，不解压存储字段
+     */
+    public static final FieldType STRING_FIELD_TYPE_DOC_VALUES = new FieldType(StringField.TYPE_NOT_STORED);
+
+    /**
+     * 长整数域类型-(数值索引、存储，并建立Numeric DocValues)
+     * 适用：时间戳、日期(毫秒数)、数量等，支持范围过滤与排序
+     */
+    public static final FieldType LONG_FIELD_TYPE_STORED = new FieldType(LongField.TYPE_STORED);
+
+    /**
+     * 长整数域类型-(数值索引、不存储，并建立Numeric DocValues)
+     * 适用：只用于范围过滤与排序的时间戳、日期(毫秒数)等
+     */
+    public static final FieldType LONG_FIELD_TYPE_NOT_STORED = new FieldType(LongField.TYPE_NOT_STORED);
+
+    /**
+     * 浮点数域类型-(数值索引、存储，并建立Numeric DocValues)
+     * 适用：价格、评分等，支持范围过滤与排序
+     */
+    public static final FieldType DOUBLE_FIELD_TYPE_STORED = new FieldType(DoubleField.TYPE_STORED);
+
+    /**
+     * 浮点数域类型-(数值索引、不存储，并建立Numeric DocValues)
+     * 适用：只用于范围过滤与排序的价格、评分等
+     */
+    public static final FieldType DOUBLE_FIELD_TYPE_NOT_STORED = new FieldType(DoubleField.TYPE_NOT_STORED);
+
+    static {
+        for(FieldType numericType : new FieldType[]{LONG_FIELD_TYPE_STORED, LONG_FIELD_TYPE_NOT_STORED,
+                DOUBLE_FIELD_TYPE_STORED, DOUBLE_FIELD_TYPE_NOT_STORED}){
+            numericType.setDocValuesType(DocValuesType.NUMERIC);
+            numericType.freeze();
+        }
+        STRING_FIELD_TYPE_STORED_DOC_VALUES.setDocValuesType(DocValuesType.SORTED_SET);
+        STRING_FIELD_TYPE_STORED_DOC_VALUES.freeze();
+        STRING_FIELD_TYPE_DOC_VALUES.setDocValuesType(DocValuesType.SORTED_SET);
+        STRING_FIELD_TYPE_DOC_VALUES.freeze();
+        TEXT_FIELD_TYPE_STORED_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXT_FIELD_TYPE_STORED_OFFSETS.freeze();
+        TEXT_FIELD_TYPE_STORED_TERM_VECTORS.setStoreTermVectors(true);
+        TEXT_FIELD_TYPE_STORED_TERM_VECTORS.setStoreTermVectorPositions(true);
+        TEXT_FIELD_TYPE_STORED_TERM_VECTORS.setStoreTermVectorOffsets(true);
+        TEXT_FIELD_TYPE_STORED_TERM_VECTORS.freeze();
+    }
+
     /**
      * 中文分词器-IK分词器
      */
@@ -64,32 +135,112 @@ public class LuceneUtil {
     /**
      * 索引写入器容器-key:索引存放目录，value：目录的索引写入器
      */
-    private static volatile Map<String,IndexWriter> indexWriterMap = new HashMap<String,IndexWriter>();
+    private static final ConcurrentMap<String,IndexWriter> indexWriterMap = new ConcurrentHashMap<String,IndexWriter>();
+
+    /**
+     * 索引写入器锁容器-key:索引存放目录，value：打开与关闭该目录写入器时使用的锁，不同目录互不阻塞
+     */
+    private static final ConcurrentMap<String,Object> writerLockMap = new ConcurrentHashMap<String,Object>();
+
+    /**
+     * 写入器配置档容器-key:索引存放目录，value：目录使用的配置档，未设置时使用DEFAULT
+     */
+    private static final Map<String,IndexWriterProfile> writerProfileMap = new ConcurrentHashMap<String,IndexWriterProfile>();
+
+    /**
+     * 目录策略容器-key:索引存放目录，value：目录的打开方式，未设置时使用FS
+     */
+    private static final Map<String,DirectoryStrategy> directoryStrategyMap = new ConcurrentHashMap<String,DirectoryStrategy>();
+
+    /**
+     * 预写日志容器-key:索引存放目录，value：目录的预写日志，未开启的目录每次写入后提交
+     */
+    private static final ConcurrentMap<String,Translog> translogMap = new ConcurrentHashMap<String,Translog>();
+
+    /**
+     * 近实时刷新引擎-维护各索引目录的搜索器并在后台刷新
+     */
+    private static final NrtRefreshEngine refreshEngine = new NrtRefreshEngine();
+
+    /**
+     * 组提交写入器-异步写入按索引目录排队并合并提交
+     */
+    private static final GroupCommitIngester groupCommitIngester = new GroupCommitIngester();
+
+    /**
+     * 编译查询缓存-重复的查询字符串不再重新解析
+     */
+    static final CompiledQueryCache queryCache = new CompiledQueryCache(analyzer, CompiledQueryCache.DEFAULT_MAX_ENTRIES);
 
     /**
-     * 索引读取器容器-key:索引存放目录，value：目录的索引读取器
+     * 查询结果缓存-默认关闭，读取器刷新后自动失效
      */
-    private static volatile Map<String,DirectoryReader> indexReaderMap = new HashMap<String,DirectoryReader>();
+    private static final QueryResultCache resultCache = new QueryResultCache(0);
 
     /**
-     * 索引搜索器容器-key:索引存放目录，value：目录的索引搜索器
+     * 段并行搜索器工厂-默认关闭
      */
-    private static volatile Map<String,IndexSearcher> IndexSearcherMap = new HashMap<String,IndexSearcher>();
+    private static final ParallelSearcherFactory searcherFactory = new ParallelSearcherFactory();
 
     /**
-     * 索引写入器锁
+     * 搜索器预热器-新搜索器与合并出的新段在对搜索可见前执行预热查询
      */
-    private static final Object writerLock = new Object();
+    private static final SearcherWarmer searcherWarmer = new SearcherWarmer();
 
     /**
-     * 索引读取器锁
+     * 运行指标-各索引目录的操作延迟与即时状态，注册为JMX MBean
      */
-    private static final Object readerLock = new Object();
+    private static final LuceneMetrics metrics = new LuceneMetrics();
+
+    /**
+     * 慢查询日志-默认关闭
+     */
+    private static final SlowQueryLog slowQueryLog = new SlowQueryLog();
+
+    /**
+     * 关闭时等待写入完成、租约归还的最长时间(毫秒)
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000L;
+
+    /**
+     * 索引生命周期管理器-限制打开的索引目录数，关闭空闲的索引目录
+     */
+    private static final IndexLifecycleManager lifecycleManager = new IndexLifecycleManager(
+            new IndexLifecycleManager.IndexCloser() {
+                @Override
+                public boolean isBusy(String indexPath) {
+                    return groupCommitIngester.inFlightCount(indexPath) > 0;
+                }
+
+                @Override
+                public void close(String indexPath) throws Exception {
+                    try{
+                        closeIndexWriter(indexPath);
+                    }finally{
+                        //移除已关闭索引目录的运行指标并注销MBean，再次打开时重新创建
+                        metrics.remove(indexPath);
+                    }
+                }
+            });
+
+    static {
+        refreshEngine.addListener(resultCache);
+        refreshEngine.setSearcherFactory(searcherFactory);
+        refreshEngine.setWarmer(searcherWarmer);
+        refreshEngine.setStatsListener(metrics);
+        //进程退出时排空异步写入并提交关闭所有索引目录
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        }, "lucene-shutdown"));
+    }
 
     /**
-     * 索引搜索器锁
+     * 是否对索引了偏移量或词向量的字段使用基于偏移量的高亮
      */
-    private static final Object searcherLock = new Object();
+    private static volatile boolean offsetHighlightEnabled = true;
 
     /**
      * 构造器私有
@@ -164,6 +315,60 @@ public class LuceneUtil {
         public void setHighlightFlag(boolean highlightFlag) {
             this.highlightFlag = highlightFlag;
         }
+
+        /**
+         * 长整数域模型
+         * @param fieldName		域名
+         * @param value			域值
+         * @param stored		是否存储
+         * @return
+         */
+        public static FieldModel ofLong(String fieldName, long value, boolean stored){
+            return new FieldModel(fieldName, String.valueOf(value),
+                    stored ? LONG_FIELD_TYPE_STORED : LONG_FIELD_TYPE_NOT_STORED, false, false);
+        }
+
+        /**
+         * 浮点数域模型
+         * @param fieldName		域名
+         * @param value			域值
+         * @param stored		是否存储
+         * @return
+         */
+        public static FieldModel ofDouble(String fieldName, double value, boolean stored){
+            return new FieldModel(fieldName, String.valueOf(value),
+                    stored ? DOUBLE_FIELD_TYPE_STORED : DOUBLE_FIELD_TYPE_NOT_STORED, false, false);
+        }
+
+        /**
+         * 日期域模型-以毫秒数作为长整数索引
+         * @param fieldName		域名
+         * @param value			域值
+         * @param stored		是否存储
+         * @return
+         */
+        public static FieldModel ofDate(String fieldName, Date value, boolean stored){
+            return ofLong(fieldName, value.getTime(), stored);
+        }
+
+        /**
+         * 以长整数获取域值
+         */
+        public long getLongValue() {
+            return Long.parseLong(fieldValue);
+        }
+        /**
+         * 以浮点数获取域值
+         */
+        public double getDoubleValue() {
+            return Double.parseDouble(fieldValue);
+        }
+        /**
+         * 以日期获取域值(域值为毫秒数)
+         */
+        public Date getDateValue() {
+            return new Date(Long.parseLong(fieldValue));
+        }
     }
 
     /**
@@ -178,26 +383,58 @@ public class LuceneUtil {
             throw new IllegalArgumentException("传入参数为空！");
         }
 
+        long start = System.nanoTime();
+        lifecycleManager.acquire(indexPath);
         try{
             //加入索引文档
             iw = getIndexWriter(indexPath);
-            for(FieldModel[] doc : docs){
-                Document document = new Document();
-                for(FieldModel col : doc){
-                    document.add(new Field(col.getFieldName(),col.getFieldValue(),col.getFieldType()));
+            Translog translog = translogMap.get(indexPath);
+            if(translog != null){
+                //写入预写日志后返回，由周期提交持久化到索引
+                translog.write(iw, Translog.Record.of(Translog.OP_ADD, docs));
+            }else{
+                for(FieldModel[] doc : docs){
+                    iw.addDocument(buildDocument(doc));
                 }
-                iw.addDocument(document);
-            }
 
-            //提交事务
-            iw.commit();
+                //提交事务
+                commit(indexPath, iw);
+            }
+            refreshAfterCommit(indexPath);
         }catch(Exception e){
             e.printStackTrace();
-            //事务回滚
-            if(iw != null){
-                iw.rollback();
-            }
+            rollbackOnFailure(indexPath, iw);
             throw new RuntimeException("新增索引失败");
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.ADD, start);
+            lifecycleManager.release(indexPath);
+        }
+    }
+
+    /**
+     * 并行批量新增索引-文档构建与分词分散到多个工作线程，全部写入后提交一次
+     * 注：单个文档失败不回滚整个批次，失败明细见返回结果
+     * @param indexPath		索引存储位置
+     * @param docs			文档模型迭代器（[字段]）-Stream可通过iterator()传入
+     * @param threads		工作线程数
+     * @param listener		进度监听器，可为null
+     * @return				批量索引结果(成功数、失败数、吞吐、失败明细)
+     * @throws Exception
+     */
+    public static BulkIndexer.Result bulkAddIndex(String indexPath, Iterator<FieldModel[]> docs, int threads,
+                                                  BulkIndexer.ProgressListener listener) throws Exception{
+        if (indexPath == null || docs == null) {
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        lifecycleManager.acquire(indexPath);
+        try{
+            IndexWriter iw = getIndexWriter(indexPath);
+            BulkIndexer.Result result = new BulkIndexer(threads, BulkIndexer.DEFAULT_PROGRESS_INTERVAL, listener)
+                    .index(indexPath, iw, docs);
+            refreshAfterCommit(indexPath);
+            return result;
+        }finally{
+            lifecycleManager.release(indexPath);
         }
     }
 
@@ -212,26 +449,21 @@ public class LuceneUtil {
         if(indexPath == null || idColArr == null){
             throw new IllegalArgumentException("传入参数为空！");
         }
+        long start = System.nanoTime();
+        lifecycleManager.acquire(indexPath);
         try{
             iw = getIndexWriter(indexPath);
-            Term[] termArr = new Term[idColArr.length];
-            for(int i = 0; i < idColArr.length; i++){
-                FieldModel idCol = idColArr[i];
-                if(idCol.getIdFlag()){
-                    termArr[i] = new Term(idColArr[i].getFieldName(),idColArr[i].getFieldValue());
-                }
-            }
-            //删除文档索引
-            iw.deleteDocuments(termArr);
-            //提交事务
-            iw.commit();
+            //删除文档索引-只使用主键模型，重复的主键只删除一次
+            WriteBatch batch = new WriteBatch().delete(idColArr);
+            commitOrLog(indexPath, iw, batch);
+            refreshAfterCommit(indexPath);
         }catch(Exception e){
             e.printStackTrace();
-            //事务回滚
-            if(iw != null){
-                iw.rollback();
-            }
+            rollbackOnFailure(indexPath, iw);
             throw new RuntimeException();
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.DELETE, start);
+            lifecycleManager.release(indexPath);
         }
     }
 
@@ -246,315 +478,1354 @@ public class LuceneUtil {
         if(indexPath == null || docs == null){
             throw new IllegalArgumentException("传入参数为空！");
         }
+        WriteBatch batch = new WriteBatch().upsert(docs);
+        long start = System.nanoTime();
+        lifecycleManager.acquire(indexPath);
         try{
             iw = getIndexWriter(indexPath);
-            for(FieldModel[] doc : docs){
-                //当前文档id
-                Term idTerm = null;
-                Document document = new Document();
-                for(FieldModel col : doc){
-                    document.add(new Field(col.getFieldName(),col.getFieldValue(),col.getFieldType()));
-                    if(col.getIdFlag()){
-                        idTerm = new Term(col.getFieldName(),col.getFieldValue());
-                    }
-                }
-                //查找满足term的文档并替换
-                iw.updateDocument(idTerm, document);
-            }
-            //提交事务
-            iw.commit();
+            //查找满足term的文档并替换-批次内同一主键只保留最后一个版本
+            commitOrLog(indexPath, iw, batch);
+            refreshAfterCommit(indexPath);
         }catch(Exception e){
             e.printStackTrace();
-            //事务回滚
-            if(iw != null){
-                iw.rollback();
-            }
+            rollbackOnFailure(indexPath, iw);
             throw new RuntimeException("修改索引异常！");
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.UPDATE, start);
+            lifecycleManager.release(indexPath);
         }
     }
 
     /**
-     * 搜索文档
-     * @param indexPath			索引存储位置
-     * @param queryStr			搜索字符串
-     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
-     * @param doc				提取文档的模型 - 注：Model必须设置字段名
-     * @param size				搜索数量
-     * @return					返回文档模型结果集
+     * 批量写入索引-批次内同一主键只保留最后一次操作，每个主键原子替换后提交
+     * @param indexPath		索引存储位置
+     * @param batch			批量写入
      * @throws Exception
      */
-    public static List<FieldModel[]> search(String indexPath, String queryStr, String[] searchColNames,
-                                            FieldModel[] doc, int size) throws Exception {
-        List<FieldModel[]> resDocList = null;
-        if(indexPath == null || queryStr == null || searchColNames == null || doc == null){
+    public static void writeBatch(String indexPath, WriteBatch batch) throws Exception{
+        IndexWriter iw = null;
+        if(indexPath == null || batch == null){
             throw new IllegalArgumentException("传入参数为空！");
         }
-        if (size > 0) {
-            IndexSearcher is = getIndexSearcher(indexPath);
-            MultiFieldQueryParser mqp = new MultiFieldQueryParser(searchColNames, analyzer);
-            Query query = mqp.parse(queryStr);
-
-            //高亮分析器
-            Highlighter highlighter = null;
-
-            //搜索的结果集
-            TopDocs topDocs = is.search(query, size);
-            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
-
-            //提取结果集
-            resDocList = new ArrayList<FieldModel[]>();
-            for(ScoreDoc sd : scoreDocs){
-                //返回的文档模型
-                FieldModel[] resDoc = new FieldModel[doc.length];
-                Document document = is.doc(sd.doc);
-                for(int i = 0; i < doc.length; i++){
-                    //需要提取的文档模型的字段
-                    FieldModel col = doc[i];
-
-                    String colName = col.getFieldName();
-                    String colValue = document.get(colName);
-
-                    //高亮
-                    if(colValue != null && col.getHighlightFlag()){
-                        highlighter = highlighter != null ? highlighter : getHighlighter(query,colName);
-                        TokenStream ts = analyzer.tokenStream(colName, colValue);
-                        String highStr = highlighter.getBestFragment(ts, colValue);
-                        if(highStr != null){
-                            colValue = highStr;
-                        }
-                    }
-
-                    //返回的文档的字段模型
-                    FieldModel resCol = new FieldModel(colName, colValue,
-                            col.getFieldType(), col.getIdFlag(),
-                            col.getHighlightFlag());
+        if(batch.isEmpty()){
+            return;
+        }
+        long start = System.nanoTime();
+        lifecycleManager.acquire(indexPath);
+        try{
+            iw = getIndexWriter(indexPath);
+            commitOrLog(indexPath, iw, batch);
+            refreshAfterCommit(indexPath);
+        }catch(Exception e){
+            e.printStackTrace();
+            rollbackOnFailure(indexPath, iw);
+            throw new RuntimeException("批量写入索引失败");
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.UPDATE, start);
+            lifecycleManager.release(indexPath);
+        }
+    }
 
-                    //加入文档字段
-                    resDoc[i] = resCol;
-                }
-                resDocList.add(resDoc);
-            }
+    /**
+     * 写入失败时回滚事务-开启预写日志的索引目录只让本次写入失败，不回滚：
+     * 写入器由多个调用共享，其他调用已写入日志并返回的写入不能被丢弃
+     * @param indexPath		索引存储位置
+     * @param iw			索引写入器，可为null
+     * @throws Exception
+     */
+    static void rollbackOnFailure(String indexPath, IndexWriter iw) throws Exception{
+        if(iw != null && !translogMap.containsKey(indexPath)){
+            iw.rollback();
         }
-        return resDocList;
     }
 
     /**
-     * 分页搜索文档-检索内容
-     * @param indexPath			索引存储位置
-     * @param queryStr			搜索字符串
-     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
-     * @param doc				提取文档的模型 - 注：Model必须设置字段名
-     * @param pageIndex			当前页码
-     * @param pageSize			每页数量
-     * @return					返回文档模型结果集
+     * 应用批量写入-开启预写日志的索引目录写入日志后返回，否则立即提交
+     * @param indexPath		索引存储位置
+     * @param iw			索引写入器
+     * @param batch			批量写入
      * @throws Exception
      */
-    public static List<FieldModel[]> searchPage(String indexPath,
-                                                String queryStr, String[] searchColNames, FieldModel[] doc,
-                                                int pageIndex, int pageSize) throws Exception {
-        List<FieldModel[]> resDocList = null;
-        if(indexPath == null || queryStr == null || searchColNames == null || doc == null){
-            throw new IllegalArgumentException("传入参数为空！");
+    private static void commitOrLog(String indexPath, IndexWriter iw, WriteBatch batch) throws Exception{
+        Translog translog = translogMap.get(indexPath);
+        if(translog != null){
+            translog.write(iw, batch.toRecord());
+        }else{
+            batch.applyTo(iw);
+            //提交事务
+            commit(indexPath, iw);
         }
-        if (pageIndex > 0 && pageSize > 0) {
-            if(pageIndex == 1){
-                resDocList = search(indexPath,queryStr,searchColNames,doc,pageSize);
-            }else{
-                IndexSearcher is = getIndexSearcher(indexPath);
-                MultiFieldQueryParser mqp = new MultiFieldQueryParser(searchColNames, analyzer);
-                Query query = mqp.parse(queryStr);
-
-                //高亮分析器
-                Highlighter highlighter = null;
-
-                //上一页最后数量
-                int num = (pageIndex - 1) * pageSize;
-                //获取上一页的最后一个结果
-                ScoreDoc lastScoreDoc = is.search(query, num).scoreDocs[num - 1];
-
-                //提取结果集
-                TopDocs topDocs = is.searchAfter(lastScoreDoc, query, pageSize);
-                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
-
-                //提取结果集
-                resDocList = new ArrayList<FieldModel[]>();
-                for (ScoreDoc sd : scoreDocs) {
-                    //返回的文档模型
-                    FieldModel[] resDoc = new FieldModel[doc.length];
-                    Document document = is.doc(sd.doc);
-                    for(int i = 0; i < doc.length; i++){
-                        //需要提取的文档模型的字段
-                        FieldModel col = doc[i];
-
-                        String colName = col.getFieldName();
-                        String colValue = document.get(colName);
-
-                        //高亮
-                        if(colValue != null && col.getHighlightFlag()){
-                            highlighter = highlighter != null ? highlighter : getHighlighter(query,colName);
-                            TokenStream ts = analyzer.tokenStream(colName, colValue);
-                            colValue = highlighter.getBestFragment(ts, colValue);
-                        }
+    }
 
-                        //返回的模型
-                        FieldModel resCol = new FieldModel(colName, colValue,
-                                col.getFieldType(), col.getIdFlag(),
-                                col.getHighlightFlag());
+    /**
+     * 异步新增索引-加入组提交队列，与其他写入合并为一次提交
+     * @param indexPath		索引存储位置
+     * @param docs			多个文档模型（[对象][字段]）-文档需要建立主键模型
+     * @return				本次写入所在批次提交(持久化)后完成的Future
+     * @throws java.util.concurrent.RejectedExecutionException	写入队列已满(背压)
+     */
+    public static Future<Void> addIndexAsync(String indexPath, FieldModel[]... docs){
+        if (indexPath == null || docs == null) {
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        return groupCommitIngester.submit(indexPath, GroupCommitIngester.OpType.ADD, docs);
+    }
 
-                        //加入文档字段
-                        resDoc[i] = resCol;
-                    }
-                    resDocList.add(resDoc);
-                }
-            }
+    /**
+     * 异步删除索引-依据文档的主键，加入组提交队列
+     * @param indexPath		索引存储位置
+     * @param idColArr		主键字段模型数组（[主键]）-非主键模型将被忽略
+     * @return				本次写入所在批次提交(持久化)后完成的Future
+     * @throws java.util.concurrent.RejectedExecutionException	写入队列已满(背压)
+     */
+    public static Future<Void> deleteIndexAsync(String indexPath, FieldModel[] idColArr){
+        if(indexPath == null || idColArr == null){
+            throw new IllegalArgumentException("传入参数为空！");
         }
-        return resDocList;
+        return groupCommitIngester.submit(indexPath, GroupCommitIngester.OpType.DELETE, new FieldModel[][]{idColArr});
     }
 
     /**
-     * 统计匹配查询的记录条数
-     * @param indexPath			索引存储位置
-     * @param queryStr			搜索字符串
-     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
-     * @return
-     * @throws Exception
+     * 异步修改索引-依据文档id更新索引，加入组提交队列
+     * 注：文档在提交时构建并校验，非法的文档使本次调用直接抛出IllegalArgumentException，不写入任何文档；
+     * 多个文档逐个修改，写入器拒绝其中部分文档时其余文档照常提交，Future以PartialWriteException完成，
+     * 失败的文档保持修改前的状态；全部文档失败时Future以RuntimeException完成
+     * @param indexPath		索引存储位置
+     * @param docs			需要更新的文档模型数组（每个域必须包含：域名、域值、域类型）
+     * @return				本次写入所在批次提交(持久化)后完成的Future
+     * @throws java.util.concurrent.RejectedExecutionException	写入队列已满(背压)
      */
-    public static int count(String indexPath,String queryStr,String[] searchColNames) throws Exception {
-        if(indexPath == null || queryStr == null || searchColNames == null){
+    public static Future<Void> updateIndexAsync(String indexPath, FieldModel[]... docs){
+        if(indexPath == null || docs == null){
             throw new IllegalArgumentException("传入参数为空！");
         }
-        QueryParser mqp = new MultiFieldQueryParser(searchColNames, analyzer);
-        Query query = mqp.parse(queryStr);
-        IndexSearcher is = getIndexSearcher(indexPath);
-        return is.count(query);
+        return groupCommitIngester.submit(indexPath, GroupCommitIngester.OpType.UPDATE, docs);
     }
 
     /**
-     * 字符串高亮处理
-     * @param query			查询关键字
-     * @param colValue		需要高亮的字段值
-     * @return				高亮后的字符串
-     * @throws Exception
+     * 设置组提交策略-对之后的批次生效
+     * @param maxBatchOps		单批次最大写入操作数，达到即提交
+     * @param maxDelayMillis	批次最长等待时间(毫秒)，到期即提交
      */
-    public static String highlightHandle(String query,String colValue) throws Exception{
-        Query q = new QueryParser(null, analyzer).parse(query);
-        TokenStream ts = analyzer.tokenStream(null, colValue);
-        return getHighlighter(q,null).getBestFragment(ts, colValue);
+    public static void setGroupCommitPolicy(int maxBatchOps, long maxDelayMillis){
+        groupCommitIngester.setPolicy(maxBatchOps, maxDelayMillis);
     }
 
     /**
-     * 获取索引写入器
-     * @param indexPath		索引存储路径
-     * @return
+     * 设置索引目录的写入器配置档-写入器已打开时运行时切换，否则在打开写入器时生效
+     * 如：全量重建前切换为BULK_LOAD，重建完成后切换回NRT_LOW_LATENCY
+     * @param indexPath		索引存储位置
+     * @param profile		写入器配置档
      * @throws Exception
      */
-    private static IndexWriter getIndexWriter(String indexPath) throws Exception {
+    public static void setWriterProfile(String indexPath, IndexWriterProfile profile) throws Exception{
+        if(indexPath == null || profile == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        writerProfileMap.put(indexPath, profile);
         IndexWriter iw = indexWriterMap.get(indexPath);
-        try{
-            if(iw == null || !iw.isOpen()){
-                synchronized (writerLock) {
-                    iw = indexWriterMap.get(indexPath);
-                    if(iw == null || !iw.isOpen()){
-                        Directory directory = openFSDirectory(indexPath);
-                        IndexWriterConfig iwc = getIndexWriterConfig();
-                        iw = new IndexWriter(directory,iwc);
-                        indexWriterMap.put(indexPath, iw);
-                    }
-                }
-            }
-        }catch(Exception e){
-            try{
-                if(iw != null){
-                    iw.rollback();
-                    iw.close();
-                    iw = null;
-                }
-            }catch(Exception e2){
-                e2.printStackTrace();
-            }
-            indexWriterMap.remove(indexPath);
-            e.printStackTrace();
-            throw new RuntimeException("获取索引时异常!");
+        if(iw != null && iw.isOpen()){
+            profile.applyTo(iw.getConfig());
         }
-        return iw;
     }
 
     /**
-     * 获取索引读取器
-     * @param indexPath		索引存储路径
-     * @return
-     * @throws Exception
+     * 设置索引目录的目录策略-须在索引目录首次使用(打开写入器)前设置
+     * 如：大型文档索引使用MMAP，小型查找索引使用RAM
+     * @param indexPath		索引存储位置
+     * @param strategy		目录策略
      */
-    private static IndexReader getIndexReader(String indexPath) throws Exception {
-        //最新时间点的读取器
-        DirectoryReader newReader = null;
-        //旧时间点的读取器
-        DirectoryReader oldReader = indexReaderMap.get(indexPath);
-
-        try{
-            if(oldReader == null || !oldReader.isCurrent()){
-                synchronized (readerLock) {
-                    oldReader = indexReaderMap.get(indexPath);
-                    if(oldReader == null){
-                        newReader = DirectoryReader.open(getIndexWriter(indexPath), true);
-                        indexReaderMap.put(indexPath, newReader);
-                    }else{
-                        if(!oldReader.isCurrent()){
-                            newReader = DirectoryReader.openIfChanged(oldReader);
-                            indexReaderMap.put(indexPath, newReader);
-                            oldReader.close();
-                        }else{
-                            newReader = oldReader;
-                        }
-                    }
-                }
-            }else{
-                newReader = oldReader;
-            }
-        }catch(Exception e){
-            try{
-                if(oldReader != null){
-                    oldReader.close();
-                    oldReader = null;
-                }
-                if(newReader != null){
-                    newReader.close();
-                    newReader = null;
-                }
-            }catch(Exception e2){
-                e2.printStackTrace();
+    public static void setDirectoryStrategy(String indexPath, DirectoryStrategy strategy){
+        if(indexPath == null || strategy == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        synchronized (writerLock(indexPath)) {
+            IndexWriter iw = indexWriterMap.get(indexPath);
+            if(iw != null && iw.isOpen() && getDirectoryStrategy(indexPath) != strategy){
+                throw new RuntimeException("索引目录已打开，目录策略须在首次使用前设置!");
             }
-            indexReaderMap.remove(indexPath);
-            e.printStackTrace();
-            throw new RuntimeException("获取索引读取器时异常!");
+            directoryStrategyMap.put(indexPath, strategy);
         }
-        return newReader;
     }
 
     /**
-     * 获取索引搜索器
+     * 获取索引目录的目录策略
+     * @param indexPath		索引存储位置
+     * @return
+     */
+    public static DirectoryStrategy getDirectoryStrategy(String indexPath){
+        DirectoryStrategy strategy = directoryStrategyMap.get(indexPath);
+        return strategy != null ? strategy : DirectoryStrategy.FS;
+    }
+
+    /**
+     * 开启索引目录的预写日志-须在索引目录首次使用(打开写入器)前设置
+     * 开启后同步写入(addIndex/deleteIndex/updateIndex/writeBatch)应用到写入器并fsync日志后即返回，
+     * 按提交周期提交索引并截断日志；写入器打开时重放最后一次提交之后的日志
+     * 注：重放时有主键的新增按主键替换，主键相同的文档只保留一份
+     * @param indexPath				索引存储位置
+     * @param commitIntervalMillis	提交周期(毫秒)
+     */
+    public static void enableTranslog(String indexPath, long commitIntervalMillis){
+        if(indexPath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if(commitIntervalMillis <= 0){
+            throw new IllegalArgumentException("提交周期必须大于0！");
+        }
+        synchronized (writerLock(indexPath)) {
+            IndexWriter iw = indexWriterMap.get(indexPath);
+            Translog translog = translogMap.get(indexPath);
+            if(translog == null){
+                if(iw != null && iw.isOpen()){
+                    throw new RuntimeException("索引目录已打开，预写日志须在首次使用前开启!");
+                }
+                translog = new Translog(indexPath);
+                translogMap.put(indexPath, translog);
+            }
+            translog.schedule(commitIntervalMillis, new Translog.Committer() {
+                @Override
+                public void commit(String indexPath) throws Exception {
+                    commitTranslog(indexPath);
+                }
+            });
+        }
+    }
+
+    /**
+     * 开启索引目录的预写日志-使用默认提交周期
+     * @param indexPath				索引存储位置
+     */
+    public static void enableTranslog(String indexPath){
+        enableTranslog(indexPath, Translog.DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 立即提交开启预写日志的索引目录并截断日志
+     * @param indexPath				索引存储位置
+     * @throws Exception
+     */
+    public static void flushTranslog(String indexPath) throws Exception{
+        if(indexPath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        commitTranslog(indexPath);
+    }
+
+    /**
+     * 获取索引目录的写入器配置档
+     * @param indexPath		索引存储位置
+     * @return
+     */
+    public static IndexWriterProfile getWriterProfile(String indexPath){
+        IndexWriterProfile profile = writerProfileMap.get(indexPath);
+        return profile != null ? profile : IndexWriterProfile.DEFAULT;
+    }
+
+    /**
+     * 获取索引目录异步写入队列中等待提交的操作数
+     * @param indexPath		索引存储位置
+     * @return
+     */
+    public static int getPendingWriteCount(String indexPath){
+        return groupCommitIngester.pendingCount(indexPath);
+    }
+
+    /**
+     * 搜索文档
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param size				搜索数量
+     * @return					返回文档模型结果集
+     * @throws Exception
+     */
+    public static List<FieldModel[]> search(String indexPath, String queryStr, String[] searchColNames,
+                                            FieldModel[] doc, int size) throws Exception {
+        List<FieldModel[]> resDocList = null;
+        if(indexPath == null || queryStr == null || searchColNames == null || doc == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if (size > 0) {
+            long start = System.nanoTime();
+            SlowQueryLog.Trace trace = slowQueryLog.start();
+            IndexSearcher is = acquireIndexSearcher(indexPath);
+            try{
+                //结果缓存
+                QueryResultCache.Key cacheKey = null;
+                long readerVersion = 0;
+                if(resultCache.isEnabled()){
+                    cacheKey = new QueryResultCache.Key(indexPath, queryStr, searchColNames, doc, size);
+                    readerVersion = ((DirectoryReader) is.getIndexReader()).getVersion();
+                    resDocList = resultCache.getDocs(cacheKey, readerVersion);
+                    if(resDocList != null){
+                        return resDocList;
+                    }
+                }
+
+                if(trace != null){
+                    trace.begin();
+                }
+                Query query = queryCache.parse(searchColNames, queryStr);
+                if(trace != null){
+                    trace.endParse();
+                    trace.begin();
+                }
+
+                //搜索的结果集
+                TopDocs topDocs = is.search(query, size);
+                if(trace != null){
+                    trace.endCollect();
+                }
+                resDocList = extractDocs(indexPath, is, query, topDocs.scoreDocs, doc, trace);
+                slowQueryLog.finish(trace, indexPath, queryStr, query, is, topDocs.totalHits, topDocs.scoreDocs);
+                if(cacheKey != null){
+                    resultCache.putDocs(cacheKey, readerVersion, resDocList);
+                }
+            }finally{
+                metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+                releaseIndexSearcher(indexPath, is);
+            }
+        }
+        return resDocList;
+    }
+
+    /**
+     * 搜索文档-带数值范围过滤与排序
+     * 注：过滤条件不参与评分；指定排序时按DocValues排序且不计算评分，适用于"最新N条"等查询
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串，为null时匹配全部文档
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param size				搜索数量
+     * @param ranges			数值范围过滤条件，可为null
+     * @param sort				排序规则，为null时按相关度排序
+     * @return					返回文档模型结果集
+     * @throws Exception
+     */
+    public static List<FieldModel[]> search(String indexPath, String queryStr, String[] searchColNames,
+                                            FieldModel[] doc, int size, NumericRange[] ranges,
+                                            NumericSort sort) throws Exception {
+        List<FieldModel[]> resDocList = null;
+        if(indexPath == null || (queryStr != null && searchColNames == null) || doc == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if (size > 0) {
+            SlowQueryLog.Trace trace = slowQueryLog.start();
+            Query query = buildQuery(queryStr, searchColNames, ranges);
+            if(trace != null){
+                trace.endParse();
+            }
+            long start = System.nanoTime();
+            IndexSearcher is = acquireIndexSearcher(indexPath);
+            try{
+                //搜索的结果集
+                if(trace != null){
+                    trace.begin();
+                }
+                TopDocs topDocs = sort == null
+                        ? is.search(query, size)
+                        : is.search(query, size, sort.toSort(), false, false);
+                if(trace != null){
+                    trace.endCollect();
+                }
+                resDocList = extractDocs(indexPath, is, query, topDocs.scoreDocs, doc, trace);
+                slowQueryLog.finish(trace, indexPath, queryStr, query, is, topDocs.totalHits, topDocs.scoreDocs);
+            }finally{
+                metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+                releaseIndexSearcher(indexPath, is);
+            }
+        }
+        return resDocList;
+    }
+
+    /**
+     * 搜索文档-返回列式结果集，不为每个命中的每个字段创建FieldModel
+     * 注：不经过查询结果缓存
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param size				搜索数量
+     * @return					列式结果集
+     * @throws Exception
+     */
+    public static ColumnarResult searchColumnar(String indexPath, String queryStr, String[] searchColNames,
+                                                FieldModel[] doc, int size) throws Exception {
+        return searchColumnar(indexPath, queryStr, searchColNames, doc, size, null, null);
+    }
+
+    /**
+     * 搜索文档-带数值范围过滤与排序，返回列式结果集
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串，为null时匹配全部文档
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param size				搜索数量
+     * @param ranges			数值范围过滤条件，可为null
+     * @param sort				排序规则，为null时按相关度排序
+     * @return					列式结果集
+     * @throws Exception
+     */
+    public static ColumnarResult searchColumnar(String indexPath, String queryStr, String[] searchColNames,
+                                                FieldModel[] doc, int size, NumericRange[] ranges,
+                                                NumericSort sort) throws Exception {
+        if(indexPath == null || (queryStr != null && searchColNames == null) || doc == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if(size <= 0){
+            return new ColumnarResult(new ResultSchema(doc), new String[doc.length][0], 0);
+        }
+        Query query = buildQuery(queryStr, searchColNames, ranges);
+        long start = System.nanoTime();
+        IndexSearcher is = acquireIndexSearcher(indexPath);
+        try{
+            TopDocs topDocs = sort == null
+                    ? is.search(query, size)
+                    : is.search(query, size, sort.toSort(), false, false);
+            return extractColumns(indexPath, is, query, topDocs.scoreDocs, doc);
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+            releaseIndexSearcher(indexPath, is);
+        }
+    }
+
+    /**
+     * 流式导出文档-按索引顺序把每个匹配的文档交给处理器，不计算评分、不排序，不在内存中累积结果集
+     * 注：只投影模型中的字段，不做高亮；导出期间持有同一个搜索器，看到的是开始时的索引快照
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串，为null时导出全部文档
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param handler			命中处理器
+     * @return					交给处理器的文档数
+     * @throws Exception
+     */
+    public static long export(String indexPath, String queryStr, String[] searchColNames,
+                              FieldModel[] doc, HitHandler handler) throws Exception {
+        return export(indexPath, queryStr, searchColNames, doc, null, handler);
+    }
+
+    /**
+     * 流式导出文档-带数值范围过滤
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串，为null时导出全部文档
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param ranges			数值范围过滤条件，可为null
+     * @param handler			命中处理器
+     * @return					交给处理器的文档数
+     * @throws Exception
+     */
+    public static long export(String indexPath, String queryStr, String[] searchColNames,
+                              FieldModel[] doc, NumericRange[] ranges, HitHandler handler) throws Exception {
+        if(indexPath == null || (queryStr != null && searchColNames == null) || doc == null || handler == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        Query query = buildQuery(queryStr, searchColNames, ranges);
+        long start = System.nanoTime();
+        IndexSearcher is = acquireIndexSearcher(indexPath);
+        try{
+            ExportCollector collector = new ExportCollector(is.getIndexReader(), doc, handler);
+            try{
+                is.search(query, collector);
+            }catch(ExportCollector.StopException e){
+                //处理器要求停止时正常结束，处理失败时抛出原异常
+                if(e.getCause() instanceof Exception){
+                    throw (Exception) e.getCause();
+                }
+            }
+            return collector.getCount();
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+            releaseIndexSearcher(indexPath, is);
+        }
+    }
+
+    /**
+     * 分面搜索文档-一次遍历同时返回前N条结果与各分面域的取值命中数
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param size				搜索数量，0表示只统计分面
+     * @param facetFields		分面域名-须以STRING_FIELD_TYPE_STORED_DOC_VALUES或STRING_FIELD_TYPE_DOC_VALUES建立索引
+     * @param maxFacetValues	每个分面域最多返回的取值数
+     * @return					结果集、匹配总数与分面统计
+     * @throws Exception
+     */
+    public static FacetResult searchWithFacets(String indexPath, String queryStr, String[] searchColNames,
+                                               FieldModel[] doc, int size, String[] facetFields,
+                                               int maxFacetValues) throws Exception {
+        if(indexPath == null || queryStr == null || searchColNames == null || doc == null || facetFields == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        Query query = queryCache.parse(searchColNames, queryStr);
+        long start = System.nanoTime();
+        IndexSearcher is = acquireIndexSearcher(indexPath);
+        try{
+            TotalHitCountCollector countCollector = new TotalHitCountCollector();
+            FacetCollector facetCollector = new FacetCollector(facetFields);
+            TopScoreDocCollector topCollector = size > 0 ? TopScoreDocCollector.create(size) : null;
+            is.search(query, topCollector == null
+                    ? MultiCollector.wrap(countCollector, facetCollector)
+                    : MultiCollector.wrap(countCollector, facetCollector, topCollector));
+
+            List<FieldModel[]> resDocList = topCollector == null
+                    ? new ArrayList<FieldModel[]>()
+                    : extractDocs(indexPath, is, query, topCollector.topDocs().scoreDocs, doc);
+            return new FacetResult(resDocList, countCollector.getTotalHits(), facetCollector.getCounts(maxFacetValues));
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+            releaseIndexSearcher(indexPath, is);
+        }
+    }
+
+    /**
+     * 构建带过滤条件的查询
+     * @param queryStr			搜索字符串，为null时匹配全部文档
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param ranges			数值范围过滤条件，可为null
+     * @return
+     * @throws Exception
+     */
+    private static Query buildQuery(String queryStr, String[] searchColNames, NumericRange[] ranges) throws Exception{
+        Query query = queryStr == null ? new MatchAllDocsQuery() : queryCache.parse(searchColNames, queryStr);
+        if(ranges == null || ranges.length == 0){
+            return query;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(query, BooleanClause.Occur.MUST);
+        for(NumericRange range : ranges){
+            builder.add(range.toQuery(), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 分页搜索文档-检索内容
+     * 注：深分页需收集此前所有页的结果，翻页较深时建议使用游标分页
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param pageIndex			当前页码
+     * @param pageSize			每页数量
+     * @return					返回文档模型结果集
+     * @throws Exception
+     */
+    public static List<FieldModel[]> searchPage(String indexPath,
+                                                String queryStr, String[] searchColNames, FieldModel[] doc,
+                                                int pageIndex, int pageSize) throws Exception {
+        List<FieldModel[]> resDocList = null;
+        if(indexPath == null || queryStr == null || searchColNames == null || doc == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if (pageIndex > 0 && pageSize > 0) {
+            if(pageIndex == 1){
+                resDocList = search(indexPath,queryStr,searchColNames,doc,pageSize);
+            }else{
+                SlowQueryLog.Trace trace = slowQueryLog.start();
+                Query query = queryCache.parse(searchColNames, queryStr);
+                if(trace != null){
+                    trace.endParse();
+                }
+
+                long start = System.nanoTime();
+                IndexSearcher is = acquireIndexSearcher(indexPath);
+                try{
+                    if(trace != null){
+                        trace.begin();
+                    }
+                    //上一页最后数量
+                    int num = (pageIndex - 1) * pageSize;
+                    //获取上一页的最后一个结果
+                    ScoreDoc[] prevScoreDocs = is.search(query, num).scoreDocs;
+                    if(prevScoreDocs.length < num){
+                        //页码超出结果范围
+                        return new ArrayList<FieldModel[]>();
+                    }
+                    ScoreDoc lastScoreDoc = prevScoreDocs[num - 1];
+
+                    //提取结果集
+                    TopDocs topDocs = is.searchAfter(lastScoreDoc, query, pageSize);
+                    if(trace != null){
+                        trace.endCollect();
+                    }
+                    resDocList = extractDocs(indexPath, is, query, topDocs.scoreDocs, doc, trace);
+                    slowQueryLog.finish(trace, indexPath, queryStr, query, is, topDocs.totalHits, topDocs.scoreDocs);
+                }finally{
+                    metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+                    releaseIndexSearcher(indexPath, is);
+                }
+            }
+        }
+        return resDocList;
+    }
+
+    /**
+     * 游标分页搜索文档-每页返回下一页游标，翻页耗时与页码无关
+     * 注：索引刷新后旧游标仍可使用，此时按已返回的条数重新定位(退化为普通深分页)
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param cursor			上一页返回的游标，第一页传null
+     * @param pageSize			每页数量
+     * @return					当前页结果及下一页游标
+     * @throws Exception
+     */
+    public static CursorPage searchPage(String indexPath, String queryStr, String[] searchColNames,
+                                        FieldModel[] doc, String cursor, int pageSize) throws Exception {
+        if(indexPath == null || queryStr == null || searchColNames == null || doc == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if(pageSize <= 0){
+            throw new IllegalArgumentException("每页数量必须大于0！");
+        }
+        int queryHash = PageCursor.queryHash(indexPath, queryStr, searchColNames);
+        PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor);
+        if(pageCursor != null && pageCursor.getQueryHash() != queryHash){
+            throw new IllegalArgumentException("游标与查询条件不匹配！");
+        }
+
+        SlowQueryLog.Trace trace = slowQueryLog.start();
+        Query query = queryCache.parse(searchColNames, queryStr);
+        if(trace != null){
+            trace.endParse();
+        }
+
+        long start = System.nanoTime();
+        IndexSearcher is = acquireIndexSearcher(indexPath);
+        try{
+            if(trace != null){
+                trace.begin();
+            }
+            long readerVersion = ((DirectoryReader) is.getIndexReader()).getVersion();
+            long offset = pageCursor == null ? 0 : pageCursor.getOffset();
+
+            //上一页最后一个结果
+            ScoreDoc after = null;
+            if(pageCursor != null){
+                if(pageCursor.getReaderVersion() == readerVersion){
+                    after = pageCursor.toScoreDoc();
+                }else if(offset > 0){
+                    //读取器已刷新，文档号可能变化，按已返回条数重新定位
+                    TopDocs prevTopDocs = is.search(query, (int) offset);
+                    ScoreDoc[] prevScoreDocs = prevTopDocs.scoreDocs;
+                    if(prevScoreDocs.length < offset){
+                        return new CursorPage(new ArrayList<FieldModel[]>(), null, prevTopDocs.totalHits);
+                    }
+                    after = prevScoreDocs[(int) offset - 1];
+                }
+            }
+
+            TopDocs topDocs = after == null ? is.search(query, pageSize) : is.searchAfter(after, query, pageSize);
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            if(trace != null){
+                trace.endCollect();
+            }
+            List<FieldModel[]> resDocList = extractDocs(indexPath, is, query, scoreDocs, doc, trace);
+            slowQueryLog.finish(trace, indexPath, queryStr, query, is, topDocs.totalHits, scoreDocs);
+
+            //下一页游标
+            String nextCursor = null;
+            long nextOffset = offset + scoreDocs.length;
+            if(scoreDocs.length == pageSize && nextOffset < topDocs.totalHits){
+                nextCursor = new PageCursor(readerVersion, scoreDocs[scoreDocs.length - 1], nextOffset, queryHash).encode();
+            }
+            return new CursorPage(resDocList, nextCursor, topDocs.totalHits);
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.SEARCH, start);
+            releaseIndexSearcher(indexPath, is);
+        }
+    }
+
+    /**
+     * 提取结果集-按文档模型提取字段值并高亮
+     * 注：模型域类型为STRING_FIELD_TYPE_STORED_DOC_VALUES或STRING_FIELD_TYPE_DOC_VALUES且不高亮的字段从DocValues读取
+     * @param indexPath		索引存储路径-用于记录高亮耗时
+     * @param is			索引搜索器
+     * @param query			查询对象
+     * @param scoreDocs		命中的文档
+     * @param doc			提取文档的模型 - 注：Model必须设置字段名
+     * @return				返回文档模型结果集
+     * @throws Exception
+     */
+    static List<FieldModel[]> extractDocs(String indexPath, IndexSearcher is, Query query, ScoreDoc[] scoreDocs,
+                                                  FieldModel[] doc) throws Exception {
+        return extractDocs(indexPath, is, query, scoreDocs, doc, null);
+    }
+
+    /**
+     * 提取结果集-同时记录慢查询日志的加载与高亮耗时
+     * @param indexPath		索引存储路径-用于记录高亮耗时
+     * @param is			索引搜索器
+     * @param query			查询对象
+     * @param scoreDocs		命中的文档
+     * @param doc			提取文档的模型 - 注：Model必须设置字段名
+     * @param trace			慢查询日志的计时对象，未采样时为null
+     * @return				返回文档模型结果集
+     * @throws Exception
+     */
+    private static List<FieldModel[]> extractDocs(String indexPath, IndexSearcher is, Query query, ScoreDoc[] scoreDocs,
+                                                  FieldModel[] doc, SlowQueryLog.Trace trace) throws Exception {
+        //高亮器
+        long highlightNanos = 0;
+        long highlightStart = System.nanoTime();
+        HitHighlighter highlighter = new HitHighlighter(is, query, analyzer, offsetHighlightEnabled);
+        highlighter.prepare(doc, scoreDocs);
+        highlightNanos += System.nanoTime() - highlightStart;
+        boolean highlighted = false;
+
+        //按模型只加载需要的字段
+        DocProjector projector = new DocProjector(is.getIndexReader(), doc);
+
+        List<FieldModel[]> resDocList = new ArrayList<FieldModel[]>(scoreDocs.length);
+        for(int hit = 0; hit < scoreDocs.length; hit++){
+            ScoreDoc sd = scoreDocs[hit];
+            //返回的文档模型
+            FieldModel[] resDoc = new FieldModel[doc.length];
+            long loadStart = trace != null ? System.nanoTime() : 0;
+            String[] values = projector.load(sd.doc);
+            if(trace != null){
+                trace.loadNanos += System.nanoTime() - loadStart;
+            }
+            for(int i = 0; i < doc.length; i++){
+                //需要提取的文档模型的字段
+                FieldModel col = doc[i];
+
+                String colName = col.getFieldName();
+                String colValue = values[i];
+
+                //高亮
+                if(colValue != null && col.getHighlightFlag()){
+                    highlightStart = System.nanoTime();
+                    String highStr = highlighter.highlight(hit, sd.doc, colName, colValue);
+                    highlightNanos += System.nanoTime() - highlightStart;
+                    highlighted = true;
+                    if(highStr != null){
+                        colValue = highStr;
+                    }
+                }
+
+                //返回的文档的字段模型
+                FieldModel resCol = new FieldModel(colName, colValue,
+                        col.getFieldType(), col.getIdFlag(),
+                        col.getHighlightFlag());
+
+                //加入文档字段
+                resDoc[i] = resCol;
+            }
+            resDocList.add(resDoc);
+        }
+        if(highlighted){
+            metrics.recordNanos(indexPath, IndexMetrics.Op.HIGHLIGHT, highlightNanos);
+        }
+        if(trace != null){
+            trace.highlightNanos += highlightNanos;
+        }
+        return resDocList;
+    }
+
+    /**
+     * 提取列式结果集-每个字段一个取值数组，命中共享结果模式，字段值读取与高亮规则同extractDocs
+     * @param indexPath		索引存储路径-用于记录高亮耗时
+     * @param is			索引搜索器
+     * @param query			查询对象
+     * @param scoreDocs		命中的文档
+     * @param doc			提取文档的模型 - 注：Model必须设置字段名
+     * @return				列式结果集
+     * @throws Exception
+     */
+    static ColumnarResult extractColumns(String indexPath, IndexSearcher is, Query query, ScoreDoc[] scoreDocs,
+                                         FieldModel[] doc) throws Exception {
+        //高亮器
+        long highlightNanos = 0;
+        long highlightStart = System.nanoTime();
+        HitHighlighter highlighter = new HitHighlighter(is, query, analyzer, offsetHighlightEnabled);
+        highlighter.prepare(doc, scoreDocs);
+        highlightNanos += System.nanoTime() - highlightStart;
+        boolean highlighted = false;
+
+        //按模型只加载需要的字段
+        DocProjector projector = new DocProjector(is.getIndexReader(), doc);
+
+        String[][] columns = new String[doc.length][scoreDocs.length];
+        for(int hit = 0; hit < scoreDocs.length; hit++){
+            ScoreDoc sd = scoreDocs[hit];
+            String[] values = projector.load(sd.doc);
+            for(int i = 0; i < doc.length; i++){
+                //需要提取的文档模型的字段
+                FieldModel col = doc[i];
+                String colValue = values[i];
+
+                //高亮
+                if(colValue != null && col.getHighlightFlag()){
+                    highlightStart = System.nanoTime();
+                    String highStr = highlighter.highlight(hit, sd.doc, col.getFieldName(), colValue);
+                    highlightNanos += System.nanoTime() - highlightStart;
+                    highlighted = true;
+                    if(highStr != null){
+                        colValue = highStr;
+                    }
+                }
+                columns[i][hit] = colValue;
+            }
+        }
+        if(highlighted){
+            metrics.recordNanos(indexPath, IndexMetrics.Op.HIGHLIGHT, highlightNanos);
+        }
+        return new ColumnarResult(new ResultSchema(doc), columns, scoreDocs.length);
+    }
+
+    /**
+     * 统计匹配查询的记录条数
+     * @param indexPath			索引存储位置
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @return
+     * @throws Exception
+     */
+    public static int count(String indexPath,String queryStr,String[] searchColNames) throws Exception {
+        if(indexPath == null || queryStr == null || searchColNames == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        long start = System.nanoTime();
+        IndexSearcher is = acquireIndexSearcher(indexPath);
+        try{
+            //结果缓存
+            QueryResultCache.Key cacheKey = null;
+            long readerVersion = 0;
+            if(resultCache.isEnabled()){
+                cacheKey = new QueryResultCache.Key(indexPath, queryStr, searchColNames, null, -1);
+                readerVersion = ((DirectoryReader) is.getIndexReader()).getVersion();
+                Integer cached = resultCache.getCount(cacheKey, readerVersion);
+                if(cached != null){
+                    return cached;
+                }
+            }
+
+            Query query = queryCache.parse(searchColNames, queryStr);
+            int count = is.count(query);
+            if(cacheKey != null){
+                resultCache.putCount(cacheKey, readerVersion, count);
+            }
+            return count;
+        }finally{
+            metrics.record(indexPath, IndexMetrics.Op.COUNT, start);
+            releaseIndexSearcher(indexPath, is);
+        }
+    }
+
+    /**
+     * 获取索引目录的运行指标-各操作的延迟分布、提交与刷新耗时、刷新延迟、段数及内存缓冲占用
+     * 注：同一指标已注册为JMX MBean(com.aws.test.utils:type=Index,name="索引存储路径")
+     * @param indexPath		索引存储位置
+     * @return
+     */
+    public static IndexMetricsMXBean getIndexMetrics(String indexPath){
+        if(indexPath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        return metrics.forIndex(indexPath);
+    }
+
+    /**
+     * 设置慢查询日志-对search/searchPage按采样率记录各阶段耗时，超过阈值的调用交给慢查询监听器
+     * @param thresholdMillis	阈值(毫秒)，0表示关闭(默认)
+     * @param sampleRate		采样率(0,1]，如0.1表示只计时10%的调用
+     * @param explainTopHit		是否记录首个结果的评分解释
+     */
+    public static void setSlowQueryLog(long thresholdMillis, double sampleRate, boolean explainTopHit){
+        slowQueryLog.configure(thresholdMillis, sampleRate, explainTopHit);
+    }
+
+    /**
+     * 设置慢查询监听器
+     * @param listener		慢查询监听器，null时输出到标准错误(默认)
+     */
+    public static void setSlowQueryListener(SlowQueryListener listener){
+        slowQueryLog.setListener(listener);
+    }
+
+    /**
+     * 设置近实时刷新的最大陈旧时间-写入后最迟多久对搜索可见
+     * @param maxStaleMillis	最大陈旧时间(毫秒)
+     */
+    public static void setMaxStaleMillis(long maxStaleMillis){
+        refreshEngine.setMaxStaleMillis(maxStaleMillis);
+    }
+
+    /**
+     * 设置同时打开的索引目录上限-超出时提交并关闭最久未使用的空闲索引目录，再次使用时重新打开
+     * @param maxOpenIndexes	上限，0表示不限制(默认)
+     */
+    public static void setMaxOpenIndexes(int maxOpenIndexes){
+        lifecycleManager.setMaxOpenIndexes(maxOpenIndexes);
+    }
+
+    /**
+     * 设置索引目录的空闲超时-超过该时间未写入或搜索的索引目录被提交并关闭，再次使用时重新打开
+     * @param idleTimeoutMillis		空闲超时(毫秒)，0表示不按空闲关闭(默认)
+     */
+    public static void setIndexIdleTimeout(long idleTimeoutMillis){
+        lifecycleManager.setIdleTimeoutMillis(idleTimeoutMillis);
+    }
+
+    /**
+     * 提交并关闭索引目录-正在写入或搜索时不关闭
+     * @param indexPath		索引存储位置
+     * @return				是否已关闭
+     */
+    public static boolean closeIndex(String indexPath){
+        if(indexPath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        return lifecycleManager.close(indexPath);
+    }
+
+    /**
+     * 关闭-拒绝新的异步写入并等待队列中的写入提交，然后提交并关闭所有索引目录
+     * 注：已注册为JVM关闭钩子，正常退出时自动调用
+     */
+    public static void shutdown(){
+        if(!groupCommitIngester.drain(SHUTDOWN_TIMEOUT_MILLIS)){
+            System.err.println("等待异步写入提交超时，未提交的写入将丢失!");
+        }
+        lifecycleManager.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+        //关闭未经生命周期管理器打开的写入器
+        for(String indexPath : indexWriterMap.keySet()){
+            try{
+                closeIndexWriter(indexPath);
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 设置段并行搜索-开启后一次查询的各段由共享线程池并发搜索，下次刷新读取器后生效
+     * @param enabled			是否开启(默认关闭)
+     * @param minSliceDocs		每个并发切片的最小文档数，总文档数不足两个切片的索引仍单线程搜索
+     */
+    public static void setParallelSearch(boolean enabled, int minSliceDocs){
+        searcherFactory.configure(enabled, minSliceDocs);
+    }
+
+    /**
+     * 设置段并行搜索-使用默认的切片最小文档数
+     * @param enabled			是否开启(默认关闭)
+     */
+    public static void setParallelSearch(boolean enabled){
+        setParallelSearch(enabled, ParallelSearcherFactory.DEFAULT_MIN_SLICE_DOCS);
+    }
+
+    /**
+     * 设置索引目录的预热查询-每次刷新出新搜索器及合并出新段时，先执行预热查询再对搜索可见
+     * @param indexPath			索引存储位置
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param queryStrs			预热查询字符串，为空时清除预热查询
+     * @throws Exception
+     */
+    public static void setWarmQueries(String indexPath, String[] searchColNames, String... queryStrs) throws Exception{
+        if(indexPath == null || searchColNames == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        List<Query> queries = new ArrayList<Query>();
+        if(queryStrs != null){
+            for(String queryStr : queryStrs){
+                queries.add(queryCache.parse(searchColNames, queryStr));
+            }
+        }
+        searcherWarmer.setQueries(indexPath, queries);
+    }
+
+    /**
+     * 设置查询结果缓存的内存上限-按估算占用做LRU淘汰
+     * @param maxBytes		缓存上限(字节)，0表示关闭缓存(默认)
+     */
+    public static void setResultCacheMaxBytes(long maxBytes){
+        resultCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * 获取查询结果缓存统计(命中、未命中、淘汰次数及占用)
+     * @return
+     */
+    public static QueryResultCache.Stats getResultCacheStats(){
+        return resultCache.stats();
+    }
+
+    /**
+     * 设置是否启用基于偏移量的高亮
+     * 启用时，以TEXT_FIELD_TYPE_STORED_OFFSETS或TEXT_FIELD_TYPE_STORED_TERM_VECTORS建立索引的字段
+     * 直接使用索引中的偏移量高亮，其余字段仍重新分词
+     * @param enabled		是否启用(默认启用)
+     */
+    public static void setOffsetHighlightEnabled(boolean enabled){
+        offsetHighlightEnabled = enabled;
+        //已缓存的结果按原高亮方式生成
+        resultCache.clear();
+    }
+
+    /**
+     * 字符串高亮处理
+     * @param query			查询关键字
+     * @param colValue		需要高亮的字段值
+     * @return				高亮后的字符串
+     * @throws Exception
+     */
+    public static String highlightHandle(String query,String colValue) throws Exception{
+        Query q = queryCache.parse(null, query);
+        TokenStream ts = analyzer.tokenStream(null, colValue);
+        return HitHighlighter.newAnalyzerHighlighter(q,null).getBestFragment(ts, colValue);
+    }
+
+    /**
+     * 由文档模型构建索引文档
+     * @param doc		文档模型（[字段]）
+     * @return
+     */
+    static Document buildDocument(FieldModel[] doc){
+        Document document = new Document();
+        for(FieldModel col : doc){
+            FieldType fieldType = col.getFieldType();
+            if(fieldType.numericType() == FieldType.NumericType.LONG){
+                long value = Long.parseLong(col.getFieldValue());
+                document.add(new LongField(col.getFieldName(),value,withoutDocValues(fieldType)));
+                if(fieldType.docValuesType() == DocValuesType.NUMERIC){
+                    document.add(new NumericDocValuesField(col.getFieldName(),value));
+                }
+            }else if(fieldType.numericType() == FieldType.NumericType.DOUBLE){
+                double value = Double.parseDouble(col.getFieldValue());
+                document.add(new DoubleField(col.getFieldName(),value,withoutDocValues(fieldType)));
+                if(fieldType.docValuesType() == DocValuesType.NUMERIC){
+                    document.add(new DoubleDocValuesField(col.getFieldName(),value));
+                }
+            }else if(fieldType.docValuesType() == DocValuesType.SORTED_SET){
+                //DocValues与倒排/存储分为两个域写入
+                document.add(new Field(col.getFieldName(),col.getFieldValue(),withoutDocValues(fieldType)));
+                document.add(new SortedSetDocValuesField(col.getFieldName(),new BytesRef(col.getFieldValue())));
+            }else{
+                document.add(new Field(col.getFieldName(),col.getFieldValue(),fieldType));
+            }
+        }
+        return document;
+    }
+
+    /**
+     * 去掉域类型中的DocValues设置
+     * @param fieldType		域类型
+     * @return
+     */
+    private static FieldType withoutDocValues(FieldType fieldType){
+        if(fieldType == STRING_FIELD_TYPE_STORED_DOC_VALUES){
+            return STRING_FIELD_TYPE_STORED;
+        }
+        if(fieldType == STRING_FIELD_TYPE_DOC_VALUES){
+            return STRING_FIELD_TYPE_NOT_STORED;
+        }
+        if(fieldType == LONG_FIELD_TYPE_STORED){
+            return LongField.TYPE_STORED;
+        }
+        if(fieldType == LONG_FIELD_TYPE_NOT_STORED){
+            return LongField.TYPE_NOT_STORED;
+        }
+        if(fieldType == DOUBLE_FIELD_TYPE_STORED){
+            return DoubleField.TYPE_STORED;
+        }
+        if(fieldType == DOUBLE_FIELD_TYPE_NOT_STORED){
+            return DoubleField.TYPE_NOT_STORED;
+        }
+        if(fieldType.docValuesType() == DocValuesType.NONE){
+            return fieldType;
+        }
+        FieldType indexedType = new FieldType(fieldType);
+        indexedType.setDocValuesType(DocValuesType.NONE);
+        return indexedType;
+    }
+
+    /**
+     * 获取文档模型的主键Term
+     * @param doc		文档模型（[字段]）
+     * @return			主键Term，无主键模型时返回null
+     */
+    static Term getIdTerm(FieldModel[] doc){
+        //当前文档id
+        Term idTerm = null;
+        for(FieldModel col : doc){
+            if(col.getIdFlag()){
+                idTerm = new Term(col.getFieldName(),col.getFieldValue());
+            }
+        }
+        return idTerm;
+    }
+
+    /**
+     * 获取索引写入器
      * @param indexPath		索引存储路径
      * @return
      * @throws Exception
      */
-    private static IndexSearcher getIndexSearcher(String indexPath) throws Exception{
-        IndexSearcher is = IndexSearcherMap.get(indexPath);
+    static IndexWriter getIndexWriter(String indexPath) throws Exception {
+        IndexWriter iw = indexWriterMap.get(indexPath);
         try{
-            if(is == null || !((DirectoryReader)is.getIndexReader()).isCurrent()){
-                synchronized(searcherLock){
-                    is = IndexSearcherMap.get(indexPath);
-                    if(is == null || !((DirectoryReader)is.getIndexReader()).isCurrent()){
-                        is = new IndexSearcher(getIndexReader(indexPath));
-                        IndexSearcherMap.put(indexPath, is);
+            if(iw == null || !iw.isOpen()){
+                synchronized (writerLock(indexPath)) {
+                    iw = indexWriterMap.get(indexPath);
+                    if(iw == null || !iw.isOpen()){
+                        //旧写入器已关闭(如回滚)，其搜索器管理器与索引目录随之失效
+                        refreshEngine.close(indexPath);
+                        if(iw != null){
+                            closeDirectory(iw.getDirectory());
+                            iw = null;
+                        }
+                        Directory directory = openDirectory(indexPath);
+                        try{
+                            IndexWriterConfig iwc = getIndexWriterConfig(indexPath);
+                            iw = new IndexWriter(directory,iwc);
+                        }catch(Exception e){
+                            closeDirectory(directory);
+                            throw e;
+                        }
+                        Translog translog = translogMap.get(indexPath);
+                        if(translog != null){
+                            //重放最后一次提交之后的写入
+                            translog.recover(iw);
+                        }
+                        indexWriterMap.put(indexPath, iw);
                     }
                 }
             }
         }catch(Exception e){
-            is = null;
-            IndexSearcherMap.remove(indexPath);
+            try{
+                if(iw != null){
+                    iw.rollback();
+                    iw.close();
+                    closeDirectory(iw.getDirectory());
+                    iw = null;
+                }
+            }catch(Exception e2){
+                e2.printStackTrace();
+            }
+            synchronized (writerLock(indexPath)) {
+                indexWriterMap.remove(indexPath);
+            }
+            e.printStackTrace();
+            throw new RuntimeException("获取索引时异常!");
+        }
+        return iw;
+    }
+
+    /**
+     * 获取索引目录的写入器锁-不存在时创建
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    private static Object writerLock(String indexPath){
+        Object lock = writerLockMap.get(indexPath);
+        if(lock == null){
+            Object newLock = new Object();
+            lock = writerLockMap.putIfAbsent(indexPath, newLock);
+            if(lock == null){
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * 获取索引搜索器-使用完毕后必须调用releaseIndexSearcher归还
+     * @param indexPath		索引存储路径
+     * @return
+     * @throws Exception
+     */
+    static IndexSearcher acquireIndexSearcher(String indexPath) throws Exception{
+        lifecycleManager.acquire(indexPath);
+        try{
+            return refreshEngine.acquire(indexPath, getIndexWriter(indexPath));
+        }catch(Exception e){
+            lifecycleManager.release(indexPath);
+            e.printStackTrace();
             throw new RuntimeException("获取索引搜索器异常!");
         }
-        return is;
+    }
+
+    /**
+     * 归还索引搜索器
+     * @param indexPath		索引存储路径
+     * @param is			acquireIndexSearcher获取的搜索器
+     */
+    static void releaseIndexSearcher(String indexPath, IndexSearcher is){
+        if(is == null){
+            return;
+        }
+        try{
+            refreshEngine.release(indexPath, is);
+        }catch(Exception e){
+            e.printStackTrace();
+        }finally{
+            lifecycleManager.release(indexPath);
+        }
+    }
+
+    /**
+     * 获取索引目录的租约-持有期间索引目录不会被关闭，使用完毕后必须调用releaseIndex归还
+     * @param indexPath		索引存储路径
+     */
+    static void acquireIndex(String indexPath){
+        lifecycleManager.acquire(indexPath);
+    }
+
+    /**
+     * 归还索引目录的租约
+     * @param indexPath		索引存储路径
+     */
+    static void releaseIndex(String indexPath){
+        lifecycleManager.release(indexPath);
+    }
+
+    /**
+     * 提交并关闭索引目录的写入器及其搜索器管理器-由生命周期管理器在租约全部归还后调用
+     * @param indexPath		索引存储路径
+     * @throws Exception
+     */
+    private static void closeIndexWriter(String indexPath) throws Exception{
+        IndexWriter iw;
+        synchronized (writerLock(indexPath)) {
+            iw = indexWriterMap.remove(indexPath);
+        }
+        refreshEngine.close(indexPath);
+        if(iw == null){
+            return;
+        }
+        if(!iw.isOpen()){
+            //已回滚的写入器
+            closeDirectory(iw.getDirectory());
+            return;
+        }
+        Translog translog = translogMap.get(indexPath);
+        try{
+            commit(indexPath, iw);
+            iw.close();
+        }catch(Exception e){
+            e.printStackTrace();
+            try{
+                iw.rollback();
+            }catch(Exception e2){
+                e2.printStackTrace();
+            }
+            throw new RuntimeException("关闭索引时异常!");
+        }finally{
+            if(translog != null){
+                translog.close();
+            }
+            //写入器关闭时不关闭其索引目录，须单独关闭以释放内存映射与文件句柄
+            closeDirectory(iw.getDirectory());
+        }
+    }
+
+    /**
+     * 关闭索引目录-失败时只打印异常
+     * @param directory		索引目录
+     */
+    private static void closeDirectory(Directory directory){
+        try{
+            directory.close();
+        }catch(Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 提交开启预写日志的索引目录并截断日志-写入器未打开时忽略，由周期提交任务调用
+     * @param indexPath		索引存储路径
+     * @throws Exception
+     */
+    private static void commitTranslog(String indexPath) throws Exception{
+        Translog translog = translogMap.get(indexPath);
+        if(translog == null){
+            return;
+        }
+        //与关闭写入器互斥，已移除的写入器由关闭方提交
+        synchronized (writerLock(indexPath)) {
+            IndexWriter iw = indexWriterMap.get(indexPath);
+            if(iw != null && iw.isOpen()){
+                commit(indexPath, iw);
+            }
+        }
+    }
+
+    /**
+     * 提交写入器并记录提交耗时-开启预写日志的索引目录经由日志提交，提交数据中记录已包含的日志代数
+     * 注：所有提交都必须经由此方法，直接调用IndexWriter.commit会沿用旧的日志代数，恢复时重复重放
+     * @param indexPath		索引存储路径
+     * @param iw			索引写入器
+     * @throws Exception
+     */
+    static void commit(String indexPath, IndexWriter iw) throws Exception{
+        long start = System.nanoTime();
+        Translog translog = translogMap.get(indexPath);
+        if(translog != null){
+            translog.commit(iw);
+        }else{
+            iw.commit();
+        }
+        metrics.record(indexPath, IndexMetrics.Op.COMMIT, start);
+    }
+
+    /**
+     * 获取已打开的写入器-未打开时返回null，不会打开索引目录
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    static IndexWriter getOpenIndexWriter(String indexPath){
+        IndexWriter iw = indexWriterMap.get(indexPath);
+        return iw != null && iw.isOpen() ? iw : null;
+    }
+
+    /**
+     * 获取打开的索引目录数
+     * @return
+     */
+    static int getOpenIndexCount(){
+        int count = 0;
+        for(IndexWriter iw : indexWriterMap.values()){
+            if(iw.isOpen()){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取索引目录当前搜索器的段数-未打开时返回0
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    static int getSegmentCount(String indexPath){
+        try{
+            return refreshEngine.getSegmentCount(indexPath);
+        }catch(Exception e){
+            //搜索器管理器已关闭
+            return 0;
+        }
+    }
+
+    /**
+     * 提交后通知刷新引擎-非阻塞，保证写入方返回后尽快对搜索可见
+     * @param indexPath		索引存储路径
+     */
+    static void refreshAfterCommit(String indexPath){
+        //记录写入时间，用于计算刷新延迟
+        metrics.forIndex(indexPath).markWrite();
+        try{
+            refreshEngine.maybeRefresh(indexPath);
+        }catch(Exception e){
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -563,10 +1834,10 @@ public class LuceneUtil {
      * @return
      * @throws Exception
      */
-    private static Directory openFSDirectory(String indexPath) throws Exception{
+    private static Directory openDirectory(String indexPath) throws Exception{
         Directory dir = null;
         try{
-            dir = FSDirectory.open(Paths.get(indexPath));
+            dir = getDirectoryStrategy(indexPath).open(Paths.get(indexPath));
         }catch(Exception e){
             if(dir != null){
                 dir.close();
@@ -580,29 +1851,16 @@ public class LuceneUtil {
 
     /**
      * 获取索引写入器配置
+     * @param indexPath		索引存储路径
      * @return
      */
-    private static IndexWriterConfig getIndexWriterConfig(){
-        IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
-        //进行扩展配置
+    private static IndexWriterConfig getIndexWriterConfig(String indexPath){
+        IndexWriterConfig iwc = getWriterProfile(indexPath).newConfig(analyzer);
+        iwc.setMergedSegmentWarmer(searcherWarmer.newMergedSegmentWarmer(indexPath));
+        iwc.setInfoStream(new FlushTimingInfoStream(metrics, indexPath));
         return iwc;
     }
 
-    /**
-     * 获取高亮分析器
-     * @param query		查询对象
-     * @param colName	高亮字段名-建立索引时的域名
-     * @return			高亮分析器
-     */
-    private static Highlighter getHighlighter(Query query,String colName){
-        //定制高亮标签
-        SimpleHTMLFormatter shf = new SimpleHTMLFormatter("<font color='red'>", "</font>");
-        //评分器-用于评分文本片段(基于查询词的数量)
-        QueryScorer qs = new QueryScorer(query,colName);
-        //高亮分析器
-        return new Highlighter(shf,qs);
-    }
-
     public static void main(String[] args){
         try{
             //索引存储位置
@@ -0,0 +1,422 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 近实时刷新引擎
+ * 描述：为每个索引目录维护一个SearcherManager，由后台线程按最大陈旧时间周期性地重新打开读取器，
+ * 搜索线程只需acquire/release搜索器，不再承担isCurrent检查与reopen的I/O，也不会关闭仍在使用的读取器
+ * @author @AWS
+ *
+ */
+public class NrtRefreshEngine {
+    /**
+     * 默认最大陈旧时间(毫秒)
+     */
+    public static final long DEFAULT_MAX_STALE_MILLIS = 1000L;
+
+    /**
+     * 刷新监听器
+     */
+    public interface RefreshListener{
+        /**
+         * 索引目录发布了新的搜索器(或搜索器管理器被关闭)后调用
+         * @param indexPath		索引存储路径
+         */
+        void afterRefresh(String indexPath);
+    }
+
+    /**
+     * 刷新统计监听器
+     */
+    public interface RefreshStatsListener{
+        /**
+         * 每次尝试刷新前调用
+         * @param indexPath		索引存储路径
+         */
+        void beforeRefresh(String indexPath);
+
+        /**
+         * 每次尝试刷新后调用-无论是否打开了新的读取器
+         * @param indexPath		索引存储路径
+         * @param startNanos	刷新开始时间(System.nanoTime)
+         * @param didRefresh	是否打开了新的读取器
+         */
+        void afterRefresh(String indexPath, long startNanos, boolean didRefresh);
+    }
+
+    /**
+     * 搜索器预热器
+     */
+    public interface Warmer{
+        /**
+         * 新搜索器发布前调用-预热完成后搜索线程才能获取到该搜索器
+         * @param indexPath		索引存储路径
+         * @param searcher		新打开的搜索器
+         * @throws Exception
+         */
+        void warm(String indexPath, IndexSearcher searcher) throws Exception;
+    }
+
+    /**
+     * 搜索器管理器容器-key:索引存放目录，value：目录的搜索器管理器
+     */
+    private final ConcurrentMap<String,SearcherManager> managerMap = new ConcurrentHashMap<String,SearcherManager>();
+
+    /**
+     * 后台刷新任务容器-key:索引存放目录，value：目录的刷新任务
+     */
+    private final ConcurrentMap<String,ScheduledFuture<?>> refreshTaskMap = new ConcurrentHashMap<String,ScheduledFuture<?>>();
+
+    /**
+     * 索引目录锁容器-key:索引存放目录，value：创建与关闭该目录搜索器管理器时使用的锁，不同目录互不阻塞
+     */
+    private final ConcurrentMap<String,Object> indexLockMap = new ConcurrentHashMap<String,Object>();
+
+    /**
+     * 刷新监听器列表
+     */
+    private final List<RefreshListener> listeners = new CopyOnWriteArrayList<RefreshListener>();
+
+    /**
+     * 后台刷新线程
+     */
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * 最大陈旧时间(毫秒)-写入后最迟多久对搜索可见
+     */
+    private volatile long maxStaleMillis;
+
+    /**
+     * 搜索器工厂-null时使用默认工厂
+     */
+    private volatile SearcherFactory searcherFactory;
+
+    /**
+     * 搜索器预热器-null时不预热
+     */
+    private volatile Warmer warmer;
+
+    /**
+     * 刷新统计监听器-null时不统计
+     */
+    private volatile RefreshStatsListener statsListener;
+
+    public NrtRefreshEngine(){
+        this(DEFAULT_MAX_STALE_MILLIS);
+    }
+
+    public NrtRefreshEngine(long maxStaleMillis){
+        if(maxStaleMillis <= 0){
+            throw new IllegalArgumentException("最大陈旧时间必须大于0！");
+        }
+        this.maxStaleMillis = maxStaleMillis;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "lucene-nrt-refresher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * 获取搜索器-使用完毕后必须调用release归还
+     * @param indexPath		索引存储路径
+     * @param iw			索引目录的写入器
+     * @return				当前发布的搜索器
+     * @throws Exception
+     */
+    public IndexSearcher acquire(String indexPath, IndexWriter iw) throws Exception{
+        return getManager(indexPath, iw).acquire();
+    }
+
+    /**
+     * 归还搜索器
+     * @param indexPath		索引存储路径
+     * @param is			acquire获取的搜索器
+     * @throws Exception
+     */
+    public void release(String indexPath, IndexSearcher is) throws Exception{
+        if(is == null){
+            return;
+        }
+        SearcherManager sm = managerMap.get(indexPath);
+        if(sm != null){
+            sm.release(is);
+        }else{
+            //管理器已关闭，直接递减读取器引用
+            is.getIndexReader().decRef();
+        }
+    }
+
+    /**
+     * 立即尝试刷新-非阻塞，已有刷新在进行时直接返回
+     * @param indexPath		索引存储路径
+     * @throws Exception
+     */
+    public void maybeRefresh(String indexPath) throws Exception{
+        SearcherManager sm = managerMap.get(indexPath);
+        if(sm != null){
+            sm.maybeRefresh();
+        }
+    }
+
+    /**
+     * 关闭并移除索引目录的搜索器管理器-写入器被替换或关闭时调用
+     * @param indexPath		索引存储路径
+     */
+    public void close(String indexPath){
+        SearcherManager sm;
+        ScheduledFuture<?> task;
+        synchronized (indexLock(indexPath)) {
+            sm = managerMap.remove(indexPath);
+            task = refreshTaskMap.remove(indexPath);
+        }
+        if(task != null){
+            task.cancel(false);
+        }
+        if(sm != null){
+            try{
+                sm.close();
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+            fireAfterRefresh(indexPath);
+        }
+    }
+
+    /**
+     * 添加刷新监听器
+     * @param listener		刷新监听器
+     */
+    public void addListener(RefreshListener listener){
+        listeners.add(listener);
+    }
+
+    /**
+     * 设置最大陈旧时间-对已注册的索引目录同样生效
+     * @param maxStaleMillis	最大陈旧时间(毫秒)
+     */
+    public void setMaxStaleMillis(long maxStaleMillis){
+        if(maxStaleMillis <= 0){
+            throw new IllegalArgumentException("最大陈旧时间必须大于0！");
+        }
+        this.maxStaleMillis = maxStaleMillis;
+        for(String indexPath : refreshTaskMap.keySet()){
+            synchronized (indexLock(indexPath)) {
+                ScheduledFuture<?> task = refreshTaskMap.get(indexPath);
+                SearcherManager sm = managerMap.get(indexPath);
+                if(task != null && sm != null){
+                    task.cancel(false);
+                    refreshTaskMap.put(indexPath, scheduleRefresh(sm));
+                }
+            }
+        }
+    }
+
+    public long getMaxStaleMillis(){
+        return maxStaleMillis;
+    }
+
+    /**
+     * 设置搜索器工厂-对之后打开的搜索器生效
+     * @param searcherFactory	搜索器工厂，null时使用默认工厂
+     */
+    public void setSearcherFactory(SearcherFactory searcherFactory){
+        this.searcherFactory = searcherFactory;
+    }
+
+    /**
+     * 设置搜索器预热器-对之后打开的搜索器生效
+     * @param warmer	搜索器预热器，null时不预热
+     */
+    public void setWarmer(Warmer warmer){
+        this.warmer = warmer;
+    }
+
+    /**
+     * 设置刷新统计监听器-对已注册的索引目录同样生效
+     * @param statsListener		刷新统计监听器，null时不统计
+     */
+    public void setStatsListener(RefreshStatsListener statsListener){
+        this.statsListener = statsListener;
+    }
+
+    /**
+     * 获取当前搜索器的段数-搜索器管理器不存在时返回0，不会打开索引目录
+     * @param indexPath		索引存储路径
+     * @return
+     * @throws Exception
+     */
+    public int getSegmentCount(String indexPath) throws Exception{
+        SearcherManager sm = managerMap.get(indexPath);
+        if(sm == null){
+            return 0;
+        }
+        IndexSearcher is = sm.acquire();
+        try{
+            return is.getIndexReader().leaves().size();
+        }finally{
+            sm.release(is);
+        }
+    }
+
+    /**
+     * 获取搜索器管理器-不存在时基于写入器创建并注册后台刷新任务
+     * @param indexPath		索引存储路径
+     * @param iw			索引目录的写入器
+     * @return
+     * @throws Exception
+     */
+    private SearcherManager getManager(String indexPath, IndexWriter iw) throws Exception{
+        SearcherManager sm = managerMap.get(indexPath);
+        if(sm != null){
+            return sm;
+        }
+        synchronized (indexLock(indexPath)) {
+            sm = managerMap.get(indexPath);
+            if(sm == null){
+                try{
+                    sm = new SearcherManager(iw, true, newSearcherFactory(indexPath));
+                }catch(Exception e){
+                    e.printStackTrace();
+                    throw new RuntimeException("创建搜索器管理器时异常!");
+                }
+                addRefreshHook(indexPath, sm);
+                managerMap.put(indexPath, sm);
+                refreshTaskMap.put(indexPath, scheduleRefresh(sm));
+            }
+            return sm;
+        }
+    }
+
+    /**
+     * 获取索引目录的锁-不存在时创建
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    private Object indexLock(String indexPath){
+        Object lock = indexLockMap.get(indexPath);
+        if(lock == null){
+            Object newLock = new Object();
+            lock = indexLockMap.putIfAbsent(indexPath, newLock);
+            if(lock == null){
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * 创建索引目录的搜索器工厂-由当前的搜索器工厂打开搜索器，发布前交给预热器预热
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    private SearcherFactory newSearcherFactory(final String indexPath){
+        return new SearcherFactory(){
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) throws IOException {
+                SearcherFactory factory = searcherFactory;
+                IndexSearcher searcher = factory != null
+                        ? factory.newSearcher(reader, previousReader)
+                        : super.newSearcher(reader, previousReader);
+                Warmer w = warmer;
+                if(w != null){
+                    try{
+                        w.warm(indexPath, searcher);
+                    }catch(Exception e){
+                        //预热失败不阻止发布，搜索器仍可用
+                        e.printStackTrace();
+                    }
+                }
+                return searcher;
+            }
+        };
+    }
+
+    /**
+     * 在搜索器管理器发布新搜索器后通知刷新监听器
+     * @param indexPath		索引存储路径
+     * @param sm			搜索器管理器
+     */
+    private void addRefreshHook(final String indexPath, SearcherManager sm){
+        sm.addListener(new ReferenceManager.RefreshListener() {
+            /**
+             * 刷新开始时间-同一管理器的刷新串行执行
+             */
+            private long startNanos;
+
+            @Override
+            public void beforeRefresh() {
+                startNanos = System.nanoTime();
+                RefreshStatsListener stats = statsListener;
+                if(stats != null){
+                    stats.beforeRefresh(indexPath);
+                }
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                RefreshStatsListener stats = statsListener;
+                if(stats != null){
+                    stats.afterRefresh(indexPath, startNanos, didRefresh);
+                }
+                if(didRefresh){
+                    fireAfterRefresh(indexPath);
+                }
+            }
+        });
+    }
+
+    /**
+     * 通知刷新监听器
+     * @param indexPath		索引存储路径
+     */
+    private void fireAfterRefresh(String indexPath){
+        for(RefreshListener listener : listeners){
+            try{
+                listener.afterRefresh(indexPath);
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 注册后台刷新任务
+     * @param sm	搜索器管理器
+     * @return
+     */
+    private ScheduledFuture<?> scheduleRefresh(final SearcherManager sm){
+        return refresher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    sm.maybeRefresh();
+                }catch(Exception e){
+                    //刷新失败不终止任务，下个周期重试
+                    e.printStackTrace();
+                }
+            }
+        }, maxStaleMillis, maxStaleMillis, TimeUnit.MILLISECONDS);
+    }
+}
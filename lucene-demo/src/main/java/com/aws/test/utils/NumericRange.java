@@ -0,0 +1,102 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+
+import java.util.Date;
+
+/**
+ * 数值范围过滤条件
+ * 描述：对以LONG_FIELD_TYPE_*、DOUBLE_FIELD_TYPE_*建立索引的数值/日期域做范围过滤，
+ * 过滤条件不参与评分，边界为null表示不限
+ * @author @AWS
+ *
+ */
+public class NumericRange {
+    /**
+     * 域名
+     */
+    private final String fieldName;
+    /**
+     * 范围查询
+     */
+    private final Query query;
+
+    private NumericRange(String fieldName, Query query){
+        this.fieldName = fieldName;
+        this.query = query;
+    }
+
+    /**
+     * 长整数范围-包含边界
+     * @param fieldName		域名
+     * @param min			下限，null表示不限
+     * @param max			上限，null表示不限
+     * @return
+     */
+    public static NumericRange longRange(String fieldName, Long min, Long max){
+        return longRange(fieldName, min, true, max, true);
+    }
+
+    /**
+     * 长整数范围
+     * @param fieldName		域名
+     * @param min			下限，null表示不限
+     * @param minInclusive	是否包含下限
+     * @param max			上限，null表示不限
+     * @param maxInclusive	是否包含上限
+     * @return
+     */
+    public static NumericRange longRange(String fieldName, Long min, boolean minInclusive, Long max, boolean maxInclusive){
+        if(fieldName == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        return new NumericRange(fieldName, NumericRangeQuery.newLongRange(fieldName, min, max, minInclusive, maxInclusive));
+    }
+
+    /**
+     * 浮点数范围-包含边界
+     * @param fieldName		域名
+     * @param min			下限，null表示不限
+     * @param max			上限，null表示不限
+     * @return
+     */
+    public static NumericRange doubleRange(String fieldName, Double min, Double max){
+        return doubleRange(fieldName, min, true, max, true);
+    }
+
+    /**
+     * 浮点数范围
+     * @param fieldName		域名
+     * @param min			下限，null表示不限
+     * @param minInclusive	是否包含下限
+     * @param max			上限，null表示不限
+     * @param maxInclusive	是否包含上限
+     * @return
+     */
+    public static NumericRange doubleRange(String fieldName, Double min, boolean minInclusive, Double max, boolean maxInclusive){
+        if(fieldName == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        return new NumericRange(fieldName, NumericRangeQuery.newDoubleRange(fieldName, min, max, minInclusive, maxInclusive));
+    }
+
+    /**
+     * 日期范围-包含边界，日期以毫秒数索引
+     * @param fieldName		域名
+     * @param from			开始日期，null表示不限
+     * @param to			结束日期，null表示不限
+     * @return
+     */
+    public static NumericRange dateRange(String fieldName, Date from, Date to){
+        return longRange(fieldName, from == null ? null : from.getTime(), to == null ? null : to.getTime());
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    Query toQuery(){
+        return query;
+    }
+}
@@ -0,0 +1,74 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数值排序规则
+ * 描述：按以LONG_FIELD_TYPE_*、DOUBLE_FIELD_TYPE_*建立索引的数值/日期域的DocValues排序，
+ * 排序时不计算评分；可通过then追加次级排序
+ * @author @AWS
+ *
+ */
+public class NumericSort {
+    private final List<SortField> sortFields = new ArrayList<SortField>();
+
+    private NumericSort(){
+
+    }
+
+    /**
+     * 按长整数(或日期)域排序
+     * @param fieldName		域名
+     * @param desc			是否降序
+     * @return
+     */
+    public static NumericSort byLong(String fieldName, boolean desc){
+        return new NumericSort().thenByLong(fieldName, desc);
+    }
+
+    /**
+     * 按浮点数域排序
+     * @param fieldName		域名
+     * @param desc			是否降序
+     * @return
+     */
+    public static NumericSort byDouble(String fieldName, boolean desc){
+        return new NumericSort().thenByDouble(fieldName, desc);
+    }
+
+    /**
+     * 追加长整数(或日期)域的次级排序
+     * @param fieldName		域名
+     * @param desc			是否降序
+     * @return
+     */
+    public NumericSort thenByLong(String fieldName, boolean desc){
+        if(fieldName == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        sortFields.add(new SortField(fieldName, SortField.Type.LONG, desc));
+        return this;
+    }
+
+    /**
+     * 追加浮点数域的次级排序
+     * @param fieldName		域名
+     * @param desc			是否降序
+     * @return
+     */
+    public NumericSort thenByDouble(String fieldName, boolean desc){
+        if(fieldName == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        sortFields.add(new SortField(fieldName, SortField.Type.DOUBLE, desc));
+        return this;
+    }
+
+    Sort toSort(){
+        return new Sort(sortFields.toArray(new SortField[sortFields.size()]));
+    }
+}
@@ -0,0 +1,135 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * 分页游标
+ * 描述：记录上一页最后一个命中(文档号、评分)、所属读取器版本及已返回的条数，
+ * 以URL安全的字符串形式在调用方与服务端之间传递，对调用方不透明
+ * @author @AWS
+ *
+ */
+public class PageCursor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 游标格式版本
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * 生成游标时读取器的版本
+     */
+    private final long readerVersion;
+    /**
+     * 上一页最后一个命中的文档号
+     */
+    private final int doc;
+    /**
+     * 上一页最后一个命中的评分
+     */
+    private final float score;
+    /**
+     * 上一页最后一个命中的分片号
+     */
+    private final int shardIndex;
+    /**
+     * 已返回的条数
+     */
+    private final long offset;
+    /**
+     * 查询条件摘要(含索引存储路径)-防止游标被用于其他查询或其他索引
+     */
+    private final int queryHash;
+
+    PageCursor(long readerVersion, ScoreDoc last, long offset, int queryHash){
+        this(readerVersion, last.doc, last.score, last.shardIndex, offset, queryHash);
+    }
+
+    private PageCursor(long readerVersion, int doc, float score, int shardIndex, long offset, int queryHash){
+        this.readerVersion = readerVersion;
+        this.doc = doc;
+        this.score = score;
+        this.shardIndex = shardIndex;
+        this.offset = offset;
+        this.queryHash = queryHash;
+    }
+
+    /**
+     * 计算查询条件摘要
+     * @param indexPath			索引存储路径
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围
+     * @return
+     */
+    static int queryHash(String indexPath, String queryStr, String[] searchColNames){
+        return 31 * (31 * indexPath.hashCode() + queryStr.hashCode()) + Arrays.hashCode(searchColNames);
+    }
+
+    /**
+     * 编码为字符串
+     * @return
+     */
+    public String encode(){
+        try{
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(40);
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(readerVersion);
+            out.writeInt(doc);
+            out.writeFloat(score);
+            out.writeInt(shardIndex);
+            out.writeLong(offset);
+            out.writeInt(queryHash);
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bos.toByteArray());
+        }catch(IOException e){
+            throw new RuntimeException("编码分页游标异常!");
+        }
+    }
+
+    /**
+     * 由字符串解码
+     * @param cursor		encode得到的字符串
+     * @return
+     */
+    public static PageCursor decode(String cursor){
+        try{
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            if(in.readByte() != FORMAT_VERSION){
+                throw new IllegalArgumentException("不支持的分页游标！");
+            }
+            return new PageCursor(in.readLong(), in.readInt(), in.readFloat(), in.readInt(), in.readLong(), in.readInt());
+        }catch(IOException e){
+            throw new IllegalArgumentException("分页游标格式错误！");
+        }
+    }
+
+    ScoreDoc toScoreDoc(){
+        return new ScoreDoc(doc, score, shardIndex);
+    }
+
+    public long getReaderVersion() {
+        return readerVersion;
+    }
+    public long getOffset() {
+        return offset;
+    }
+    int getQueryHash() {
+        return queryHash;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
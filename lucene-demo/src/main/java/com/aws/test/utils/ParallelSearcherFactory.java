@@ -0,0 +1,126 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 段并行搜索器工厂
+ * 描述：开启后，新打开的搜索器由共享的有界线程池支撑，一次查询的各段并发搜索；
+ * 相邻小段合并为一个切片，切片至少包含minSliceDocs个文档，总文档数不足一个切片的索引不使用线程池，避免线程切换开销
+ * 注：设置变更在索引目录下次刷新读取器后生效
+ * @author @AWS
+ *
+ */
+class ParallelSearcherFactory extends SearcherFactory {
+    /**
+     * 默认每个切片的最小文档数
+     */
+    static final int DEFAULT_MIN_SLICE_DOCS = 250000;
+
+    /**
+     * 线程池任务队列容量-队列满时由查询线程自己执行
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * 段搜索线程池-所有索引目录共享
+     */
+    private final ExecutorService executor;
+
+    private volatile boolean enabled;
+    private volatile int minSliceDocs = DEFAULT_MIN_SLICE_DOCS;
+
+    ParallelSearcherFactory(){
+        final AtomicInteger threadNo = new AtomicInteger();
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "lucene-segment-search-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 设置段并行搜索
+     * @param enabled			是否开启
+     * @param minSliceDocs		每个切片的最小文档数
+     */
+    void configure(boolean enabled, int minSliceDocs){
+        if(minSliceDocs <= 0){
+            throw new IllegalArgumentException("切片最小文档数必须大于0！");
+        }
+        this.minSliceDocs = minSliceDocs;
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled(){
+        return enabled;
+    }
+
+    @Override
+    public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) throws IOException {
+        final int minDocs = minSliceDocs;
+        if(!enabled || reader.leaves().size() < 2 || reader.maxDoc() < 2L * minDocs
+                || groupSlices(reader.leaves(), minDocs).length < 2){
+            return new IndexSearcher(reader);
+        }
+        //slices在父类构造器中调用，只能使用捕获的局部变量
+        return new IndexSearcher(reader, executor){
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return groupSlices(leaves, minDocs);
+            }
+        };
+    }
+
+    /**
+     * 将相邻的段合并为切片，每个切片至少包含minDocs个文档(最后一个切片并入前一个)
+     * @param leaves	读取器的段
+     * @param minDocs	切片最小文档数
+     * @return
+     */
+    static IndexSearcher.LeafSlice[] groupSlices(List<LeafReaderContext> leaves, int minDocs){
+        List<List<LeafReaderContext>> groups = new ArrayList<List<LeafReaderContext>>();
+        List<LeafReaderContext> current = new ArrayList<LeafReaderContext>();
+        long currentDocs = 0;
+        for(LeafReaderContext leaf : leaves){
+            current.add(leaf);
+            currentDocs += leaf.reader().maxDoc();
+            if(currentDocs >= minDocs){
+                groups.add(current);
+                current = new ArrayList<LeafReaderContext>();
+                currentDocs = 0;
+            }
+        }
+        if(!current.isEmpty()){
+            if(groups.isEmpty()){
+                groups.add(current);
+            }else{
+                groups.get(groups.size() - 1).addAll(current);
+            }
+        }
+        IndexSearcher.LeafSlice[] slices = new IndexSearcher.LeafSlice[groups.size()];
+        for(int i = 0; i < slices.length; i++){
+            List<LeafReaderContext> group = groups.get(i);
+            slices[i] = new IndexSearcher.LeafSlice(group.toArray(new LeafReaderContext[group.size()]));
+        }
+        return slices;
+    }
+}
@@ -0,0 +1,33 @@
+package com.aws.test.utils;
+
+import java.util.Arrays;
+
+/**
+ * 部分写入失败
+ * 描述：一次写入的多个文档中只有部分写入失败，其余文档已随批次提交；
+ * 失败的文档保持写入前的状态，可按序号重试
+ * @author @AWS
+ *
+ */
+public class PartialWriteException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] failedIndexes;
+
+    /**
+     * @param failedIndexes		失败的文档在本次写入中的序号(从0开始)
+     * @param cause				第一个失败文档的异常，其余失败作为被抑制的异常附加
+     */
+    PartialWriteException(int[] failedIndexes, Throwable cause){
+        super("部分文档写入失败，失败的文档序号：" + Arrays.toString(failedIndexes) + "，其余文档已提交", cause);
+        this.failedIndexes = failedIndexes;
+    }
+
+    /**
+     * 获取失败的文档序号
+     * @return		失败的文档在本次写入中的序号(从0开始)
+     */
+    public int[] getFailedIndexes() {
+        return failedIndexes.clone();
+    }
+}
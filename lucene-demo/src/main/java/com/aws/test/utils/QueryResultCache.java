@@ -0,0 +1,490 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询结果缓存
+ * 描述：缓存search/count的结果，按结果占用的估算内存做LRU淘汰；
+ * 每条结果记录生成时读取器的版本，版本变化即视为失效，读取器刷新后整索引目录的缓存被清除；
+ * 按缓存键的哈希分为多个段，每段独立加锁，不同查询的读写互不阻塞；
+ * 占用上限对全部分段统一计算，超出时从各段轮流淘汰最久未访问的结果，单条结果只要不超过总上限即可缓存
+ * @author @AWS
+ *
+ */
+public class QueryResultCache implements NrtRefreshEngine.RefreshListener {
+    /**
+     * 单条缓存的固定开销估算(字节)
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 128L;
+
+    /**
+     * 单个字段模型的固定开销估算(字节)
+     */
+    private static final long FIELD_OVERHEAD_BYTES = 64L;
+
+    /**
+     * 分段数-须为2的幂
+     */
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * 缓存键-索引目录、查询字符串、搜索范围、提取模型与搜索数量
+     */
+    static final class Key{
+        private final String indexPath;
+        private final String queryStr;
+        private final String[] searchColNames;
+        private final FieldModel[] doc;
+        private final int size;
+        private final int hash;
+
+        /**
+         * @param indexPath			索引存储位置
+         * @param queryStr			搜索字符串
+         * @param searchColNames	搜索范围
+         * @param doc				提取文档的模型，统计条数时为null
+         * @param size				搜索数量，统计条数时为-1
+         */
+        Key(String indexPath, String queryStr, String[] searchColNames, FieldModel[] doc, int size){
+            this.indexPath = indexPath;
+            this.queryStr = queryStr;
+            this.searchColNames = searchColNames.clone();
+            this.doc = doc == null ? null : doc.clone();
+            this.size = size;
+            int h = indexPath.hashCode();
+            h = 31 * h + queryStr.hashCode();
+            h = 31 * h + Arrays.hashCode(this.searchColNames);
+            h = 31 * h + docHash(this.doc);
+            h = 31 * h + size;
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj){
+                return true;
+            }
+            if(!(obj instanceof Key)){
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && size == other.size
+                    && indexPath.equals(other.indexPath)
+                    && queryStr.equals(other.queryStr)
+                    && Arrays.equals(searchColNames, other.searchColNames)
+                    && docEquals(doc, other.doc);
+        }
+
+        long weight(){
+            long w = 2L * (indexPath.length() + queryStr.length());
+            for(String colName : searchColNames){
+                w += 2L * colName.length();
+            }
+            return w;
+        }
+
+        /**
+         * 提取模型只关心参与结果构建的属性：域名、域类型、主键标志、高亮标志
+         */
+        private static int docHash(FieldModel[] doc){
+            if(doc == null){
+                return 0;
+            }
+            int h = 1;
+            for(FieldModel col : doc){
+                h = 31 * h + String.valueOf(col.getFieldName()).hashCode();
+                h = 31 * h + System.identityHashCode(col.getFieldType());
+                h = 31 * h + (col.getIdFlag() ? 1 : 0);
+                h = 31 * h + (col.getHighlightFlag() ? 1 : 0);
+            }
+            return h;
+        }
+
+        private static boolean docEquals(FieldModel[] a, FieldModel[] b){
+            if(a == b){
+                return true;
+            }
+            if(a == null || b == null || a.length != b.length){
+                return false;
+            }
+            for(int i = 0; i < a.length; i++){
+                FieldModel x = a[i];
+                FieldModel y = b[i];
+                if(!String.valueOf(x.getFieldName()).equals(String.valueOf(y.getFieldName()))
+                        || x.getFieldType() != y.getFieldType()
+                        || x.getIdFlag() != y.getIdFlag()
+                        || x.getHighlightFlag() != y.getHighlightFlag()){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 缓存值
+     */
+    private static final class Entry{
+        private final long readerVersion;
+        private final Object result;
+        private final long weight;
+
+        private Entry(long readerVersion, Object result, long weight){
+            this.readerVersion = readerVersion;
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static class Stats{
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long oversizeCount;
+        private final int entryCount;
+        private final long weightBytes;
+        private final long maxBytes;
+
+        Stats(long hitCount, long missCount, long evictionCount, long oversizeCount, int entryCount,
+              long weightBytes, long maxBytes){
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.oversizeCount = oversizeCount;
+            this.entryCount = entryCount;
+            this.weightBytes = weightBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+        public long getMissCount() {
+            return missCount;
+        }
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+        /**
+         * 因超过缓存上限而未缓存的结果数
+         */
+        public long getOversizeCount() {
+            return oversizeCount;
+        }
+        public int getEntryCount() {
+            return entryCount;
+        }
+        public long getWeightBytes() {
+            return weightBytes;
+        }
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+        public double getHitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+    }
+
+    /**
+     * 缓存分段
+     */
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    /**
+     * 缓存占用上限(字节)，0表示不缓存
+     */
+    private volatile long maxBytes;
+
+    /**
+     * 全部分段的缓存占用(字节)
+     */
+    private final AtomicLong weightBytes = new AtomicLong();
+
+    /**
+     * 下一个淘汰的分段
+     */
+    private final AtomicInteger evictCursor = new AtomicInteger();
+
+    private final AtomicLong oversizeCount = new AtomicLong();
+
+    QueryResultCache(long maxBytes){
+        for(int i = 0; i < segments.length; i++){
+            segments[i] = new Segment();
+        }
+        setMaxBytes(maxBytes);
+    }
+
+    /**
+     * 设置缓存占用上限，超出部分立即淘汰
+     * @param maxBytes		缓存占用上限(字节)，0表示关闭缓存
+     */
+    synchronized void setMaxBytes(long maxBytes){
+        if(maxBytes < 0){
+            throw new IllegalArgumentException("缓存上限不能小于0！");
+        }
+        this.maxBytes = maxBytes;
+        evict(null);
+    }
+
+    boolean isEnabled(){
+        return maxBytes > 0;
+    }
+
+    /**
+     * 获取缓存的搜索结果
+     * @param key				缓存键
+     * @param readerVersion		当前读取器版本
+     * @return					结果副本，未命中时返回null
+     */
+    List<FieldModel[]> getDocs(Key key, long readerVersion){
+        @SuppressWarnings("unchecked")
+        List<FieldModel[]> cached = (List<FieldModel[]>) segmentFor(key).get(key, readerVersion);
+        if(cached == null){
+            return null;
+        }
+        //调用方可能修改结果，返回副本
+        return copyDocs(cached);
+    }
+
+    /**
+     * 获取缓存的统计条数
+     * @param key				缓存键
+     * @param readerVersion		当前读取器版本
+     * @return					未命中时返回null
+     */
+    Integer getCount(Key key, long readerVersion){
+        return (Integer) segmentFor(key).get(key, readerVersion);
+    }
+
+    /**
+     * 缓存搜索结果
+     * @param key				缓存键
+     * @param readerVersion		生成结果时的读取器版本
+     * @param resDocList		搜索结果
+     */
+    void putDocs(Key key, long readerVersion, List<FieldModel[]> resDocList){
+        long weight = ENTRY_OVERHEAD_BYTES + key.weight();
+        for(FieldModel[] resDoc : resDocList){
+            for(FieldModel col : resDoc){
+                weight += FIELD_OVERHEAD_BYTES;
+                if(col.getFieldValue() != null){
+                    weight += 2L * col.getFieldValue().length();
+                }
+            }
+        }
+        if(rejectOversize(weight)){
+            return;
+        }
+        put(key, new Entry(readerVersion, copyDocs(resDocList), weight));
+    }
+
+    /**
+     * 缓存统计条数
+     * @param key				缓存键
+     * @param readerVersion		生成结果时的读取器版本
+     * @param count				统计条数
+     */
+    void putCount(Key key, long readerVersion, int count){
+        long weight = ENTRY_OVERHEAD_BYTES + key.weight();
+        if(rejectOversize(weight)){
+            return;
+        }
+        put(key, new Entry(readerVersion, count, weight));
+    }
+
+    /**
+     * 清除索引目录的全部缓存
+     * @param indexPath		索引存储位置
+     */
+    void invalidate(String indexPath){
+        for(Segment segment : segments){
+            segment.invalidate(indexPath);
+        }
+    }
+
+    /**
+     * 清除全部缓存
+     */
+    void clear(){
+        for(Segment segment : segments){
+            segment.clear();
+        }
+    }
+
+    @Override
+    public void afterRefresh(String indexPath) {
+        invalidate(indexPath);
+    }
+
+    Stats stats(){
+        long hitCount = 0;
+        long missCount = 0;
+        long evictionCount = 0;
+        int entryCount = 0;
+        for(Segment segment : segments){
+            synchronized(segment){
+                hitCount += segment.hitCount;
+                missCount += segment.missCount;
+                evictionCount += segment.evictionCount;
+                entryCount += segment.entries.size();
+            }
+        }
+        return new Stats(hitCount, missCount, evictionCount, oversizeCount.get(), entryCount,
+                weightBytes.get(), maxBytes);
+    }
+
+    /**
+     * 单条结果超过总上限时不缓存并计数
+     * @param weight		结果占用估算(字节)
+     * @return				是否拒绝缓存
+     */
+    private boolean rejectOversize(long weight){
+        if(weight > maxBytes){
+            oversizeCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void put(Key key, Entry entry){
+        segmentFor(key).put(key, entry);
+        evict(key);
+    }
+
+    /**
+     * 从各分段轮流淘汰最久未访问的结果直到不超过总上限
+     * 注：每次只持有一个分段的锁；刚写入的结果不会被本次淘汰，除非已没有其他结果可淘汰
+     * @param justPut		刚写入的缓存键，可为null
+     */
+    private void evict(Key justPut){
+        int emptySegments = 0;
+        while(weightBytes.get() > maxBytes && emptySegments < SEGMENT_COUNT){
+            Segment segment = segments[evictCursor.getAndIncrement() & (SEGMENT_COUNT - 1)];
+            if(segment.evictEldest(justPut)){
+                emptySegments = 0;
+            }else{
+                emptySegments++;
+            }
+        }
+        if(justPut != null && weightBytes.get() > maxBytes){
+            //其他结果都已淘汰仍超出上限(上限被调小)
+            segmentFor(justPut).evictEldest(null);
+        }
+    }
+
+    private Segment segmentFor(Key key){
+        int h = key.hash;
+        //打散低位，避免相近的哈希落在同一段
+        h ^= h >>> 16;
+        return segments[h & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 复制结果集-缓存内的结果与调用方持有的结果互不影响
+     * @param resDocList	结果集
+     * @return
+     */
+    private static List<FieldModel[]> copyDocs(List<FieldModel[]> resDocList){
+        List<FieldModel[]> copy = new ArrayList<FieldModel[]>(resDocList.size());
+        for(FieldModel[] resDoc : resDocList){
+            FieldModel[] docCopy = new FieldModel[resDoc.length];
+            for(int i = 0; i < resDoc.length; i++){
+                FieldModel col = resDoc[i];
+                docCopy[i] = new FieldModel(col.getFieldName(), col.getFieldValue(),
+                        col.getFieldType(), col.getIdFlag(), col.getHighlightFlag());
+            }
+            copy.add(docCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * 缓存分段-访问顺序的LRU容器，所有操作在段上同步，占用同时计入总占用
+     */
+    private final class Segment{
+        private final LinkedHashMap<Key,Entry> entries = new LinkedHashMap<Key,Entry>(16, 0.75f, true);
+
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        synchronized Object get(Key key, long readerVersion){
+            Entry entry = entries.get(key);
+            if(entry == null){
+                missCount++;
+                return null;
+            }
+            if(entry.readerVersion != readerVersion){
+                //读取器已变化，结果失效
+                entries.remove(key);
+                weightBytes.addAndGet(-entry.weight);
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return entry.result;
+        }
+
+        synchronized void put(Key key, Entry entry){
+            Entry old = entries.put(key, entry);
+            weightBytes.addAndGet(old != null ? entry.weight - old.weight : entry.weight);
+        }
+
+        synchronized void invalidate(String indexPath){
+            Iterator<Map.Entry<Key,Entry>> it = entries.entrySet().iterator();
+            while(it.hasNext()){
+                Map.Entry<Key,Entry> e = it.next();
+                if(e.getKey().indexPath.equals(indexPath)){
+                    weightBytes.addAndGet(-e.getValue().weight);
+                    it.remove();
+                }
+            }
+        }
+
+        synchronized void clear(){
+            Iterator<Entry> it = entries.values().iterator();
+            while(it.hasNext()){
+                weightBytes.addAndGet(-it.next().weight);
+                it.remove();
+            }
+        }
+
+        /**
+         * 淘汰本段最久未访问的一条结果
+         * @param skip		不淘汰的缓存键，可为null
+         * @return			是否淘汰了结果
+         */
+        synchronized boolean evictEldest(Key skip){
+            Iterator<Map.Entry<Key,Entry>> it = entries.entrySet().iterator();
+            while(it.hasNext()){
+                Map.Entry<Key,Entry> e = it.next();
+                if(skip != null && e.getKey().equals(skip)){
+                    continue;
+                }
+                weightBytes.addAndGet(-e.getValue().weight);
+                it.remove();
+                evictionCount++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
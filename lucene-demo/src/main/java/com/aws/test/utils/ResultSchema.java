@@ -0,0 +1,68 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.document.FieldType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 结果模式
+ * 描述：一次搜索中所有命中共享的字段描述，引用提取文档的模型，字段名、域类型、主键标志与高亮标志只保存一份
+ * @author @AWS
+ *
+ */
+public class ResultSchema {
+    /**
+     * 提取文档的模型
+     */
+    private final FieldModel[] template;
+
+    /**
+     * 字段名在模型中的位置-同名字段取第一个
+     */
+    private final Map<String,Integer> indexMap = new HashMap<String,Integer>();
+
+    /**
+     * @param template		提取文档的模型 - 注：Model必须设置字段名
+     */
+    ResultSchema(FieldModel[] template){
+        this.template = template.clone();
+        for(int i = 0; i < this.template.length; i++){
+            String fieldName = this.template[i].getFieldName();
+            if(!indexMap.containsKey(fieldName)){
+                indexMap.put(fieldName, i);
+            }
+        }
+    }
+
+    /**
+     * 字段数
+     */
+    public int getFieldCount(){
+        return template.length;
+    }
+
+    /**
+     * 获取字段在模式中的位置
+     * @param fieldName		字段名
+     * @return				位置，不存在时返回-1
+     */
+    public int indexOf(String fieldName){
+        Integer index = indexMap.get(fieldName);
+        return index == null ? -1 : index;
+    }
+
+    public String getFieldName(int col){
+        return template[col].getFieldName();
+    }
+    public FieldType getFieldType(int col){
+        return template[col].getFieldType();
+    }
+    public boolean getIdFlag(int col){
+        return template[col].getIdFlag();
+    }
+    public boolean getHighlightFlag(int col){
+        return template[col].getHighlightFlag();
+    }
+}
@@ -0,0 +1,78 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SimpleMergedSegmentWarmer;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.InfoStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 搜索器预热器
+ * 描述：新搜索器发布前执行各索引目录配置的预热查询，加载词典FST、norms与倒排表等冷数据；
+ * 同时为写入器提供合并段预热，合并出的新段在进入近实时读取器前即完成加载，搜索线程只会拿到预热过的搜索器
+ * @author @AWS
+ *
+ */
+class SearcherWarmer implements NrtRefreshEngine.Warmer {
+    /**
+     * 预热查询每次收集的命中数
+     */
+    private static final int WARM_HITS = 10;
+
+    /**
+     * 预热查询容器-key:索引存放目录，value：目录的预热查询
+     */
+    private final Map<String,List<Query>> warmQueryMap = new ConcurrentHashMap<String,List<Query>>();
+
+    /**
+     * 设置索引目录的预热查询
+     * @param indexPath		索引存储路径
+     * @param queries		预热查询，为空时清除
+     */
+    void setQueries(String indexPath, List<Query> queries){
+        if(queries == null || queries.isEmpty()){
+            warmQueryMap.remove(indexPath);
+        }else{
+            warmQueryMap.put(indexPath, Collections.unmodifiableList(new ArrayList<Query>(queries)));
+        }
+    }
+
+    @Override
+    public void warm(String indexPath, IndexSearcher searcher) throws Exception {
+        runQueries(indexPath, searcher);
+    }
+
+    /**
+     * 创建索引目录的合并段预热器-加载新段的norms、DocValues等数据后执行预热查询
+     * @param indexPath		索引存储路径
+     * @return
+     */
+    IndexWriter.IndexReaderWarmer newMergedSegmentWarmer(final String indexPath){
+        final SimpleMergedSegmentWarmer segmentWarmer = new SimpleMergedSegmentWarmer(InfoStream.NO_OUTPUT);
+        return new IndexWriter.IndexReaderWarmer() {
+            @Override
+            public void warm(LeafReader reader) throws IOException {
+                segmentWarmer.warm(reader);
+                runQueries(indexPath, new IndexSearcher(reader));
+            }
+        };
+    }
+
+    private void runQueries(String indexPath, IndexSearcher searcher) throws IOException{
+        List<Query> queries = warmQueryMap.get(indexPath);
+        if(queries == null){
+            return;
+        }
+        for(Query query : queries){
+            searcher.search(query, WARM_HITS);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片索引
+ * 描述：一个逻辑索引按主键域取值的哈希分布到N个索引目录(分片)，每个分片有独立的写入器与合并；
+ * 写入按分片分组后并行写入，搜索并行发往所有分片后合并为全局前N条
+ * 注：各分片独立提交，跨分片的一次写入不是原子的；评分使用各分片自身的词频统计
+ * @author @AWS
+ *
+ */
+public class ShardedIndex {
+    /**
+     * 分片目录名前缀
+     */
+    private static final String SHARD_DIR_PREFIX = "shard-";
+
+    /**
+     * 分片并行执行线程池-所有分片索引共享
+     */
+    private static final ExecutorService shardExecutor;
+
+    static {
+        final AtomicInteger threadNo = new AtomicInteger();
+        shardExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "lucene-shard-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * 各分片的索引存储位置
+     */
+    private final String[] shardPaths;
+
+    /**
+     * @param basePath		分片索引根目录，分片存放在其下的shard-0..shard-(N-1)
+     * @param shardCount	分片数-建立索引后不可更改，否则文档无法按主键定位
+     */
+    public ShardedIndex(String basePath, int shardCount){
+        if(basePath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        if(shardCount <= 0){
+            throw new IllegalArgumentException("分片数必须大于0！");
+        }
+        this.shardPaths = new String[shardCount];
+        for(int i = 0; i < shardCount; i++){
+            shardPaths[i] = Paths.get(basePath, SHARD_DIR_PREFIX + i).toString();
+        }
+    }
+
+    public int getShardCount(){
+        return shardPaths.length;
+    }
+
+    /**
+     * 获取分片的索引存储位置
+     * @param shard		分片号
+     * @return
+     */
+    public String getShardPath(int shard){
+        return shardPaths[shard];
+    }
+
+    /**
+     * 计算主键取值所在的分片
+     * @param idValue	主键域值
+     * @return			分片号
+     */
+    public int shardFor(String idValue){
+        int h = idValue.hashCode();
+        h ^= (h >>> 16);
+        return (h & Integer.MAX_VALUE) % shardPaths.length;
+    }
+
+    /**
+     * 新增索引-按主键分片并行写入
+     * @param docs		多个文档模型（[对象][字段]）-文档必须建立主键模型
+     * @throws Exception
+     */
+    public void addIndex(FieldModel[]... docs) throws Exception{
+        if(docs == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        final List<List<FieldModel[]>> shardDocs = routeDocs(docs);
+        runOnShards(new ShardTask() {
+            @Override
+            public void run(int shard) throws Exception {
+                List<FieldModel[]> list = shardDocs.get(shard);
+                if(!list.isEmpty()){
+                    LuceneUtil.addIndex(shardPaths[shard], list.toArray(new FieldModel[list.size()][]));
+                }
+            }
+        });
+    }
+
+    /**
+     * 修改索引-按主键分片并行更新
+     * @param docs		需要更新的文档模型数组（每个域必须包含：域名、域值、域类型）
+     * @throws Exception
+     */
+    public void updateIndex(FieldModel[]... docs) throws Exception{
+        if(docs == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        final List<List<FieldModel[]>> shardDocs = routeDocs(docs);
+        runOnShards(new ShardTask() {
+            @Override
+            public void run(int shard) throws Exception {
+                List<FieldModel[]> list = shardDocs.get(shard);
+                if(!list.isEmpty()){
+                    LuceneUtil.updateIndex(shardPaths[shard], list.toArray(new FieldModel[list.size()][]));
+                }
+            }
+        });
+    }
+
+    /**
+     * 删除索引-依据文档的主键，只发往主键所在的分片
+     * @param idColArr		主键字段模型数组（[主键]）
+     * @throws Exception
+     */
+    public void deleteIndex(FieldModel[] idColArr) throws Exception{
+        if(idColArr == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        final List<List<FieldModel>> shardIds = new ArrayList<List<FieldModel>>();
+        for(int i = 0; i < shardPaths.length; i++){
+            shardIds.add(new ArrayList<FieldModel>());
+        }
+        for(FieldModel idCol : idColArr){
+            if(idCol.getIdFlag()){
+                shardIds.get(shardFor(idCol.getFieldValue())).add(idCol);
+            }
+        }
+        runOnShards(new ShardTask() {
+            @Override
+            public void run(int shard) throws Exception {
+                List<FieldModel> list = shardIds.get(shard);
+                if(!list.isEmpty()){
+                    LuceneUtil.deleteIndex(shardPaths[shard], list.toArray(new FieldModel[list.size()]));
+                }
+            }
+        });
+    }
+
+    /**
+     * 搜索文档-并行搜索所有分片并合并为全局前N条
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param size				搜索数量
+     * @return					返回文档模型结果集
+     * @throws Exception
+     */
+    public List<FieldModel[]> search(String queryStr, String[] searchColNames, FieldModel[] doc, int size) throws Exception{
+        return searchPage(queryStr, searchColNames, doc, 1, size);
+    }
+
+    /**
+     * 分页搜索文档-各分片收集到当前页末尾，合并后截取当前页
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @param doc				提取文档的模型 - 注：Model必须设置字段名
+     * @param pageIndex			当前页码
+     * @param pageSize			每页数量
+     * @return					返回文档模型结果集
+     * @throws Exception
+     */
+    public List<FieldModel[]> searchPage(String queryStr, String[] searchColNames, FieldModel[] doc,
+                                         int pageIndex, int pageSize) throws Exception{
+        if(queryStr == null || searchColNames == null || doc == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        List<FieldModel[]> resDocList = new ArrayList<FieldModel[]>();
+        if(pageIndex <= 0 || pageSize <= 0){
+            return resDocList;
+        }
+        final Query query = LuceneUtil.queryCache.parse(searchColNames, queryStr);
+        final int start = (pageIndex - 1) * pageSize;
+        final int numHits = start + pageSize;
+
+        final IndexSearcher[] searchers = new IndexSearcher[shardPaths.length];
+        try{
+            //并行搜索各分片
+            List<Future<TopDocs>> futures = new ArrayList<Future<TopDocs>>(shardPaths.length);
+            for(int i = 0; i < shardPaths.length; i++){
+                final int shard = i;
+                futures.add(shardExecutor.submit(new Callable<TopDocs>() {
+                    @Override
+                    public TopDocs call() throws Exception {
+                        IndexSearcher is = LuceneUtil.acquireIndexSearcher(shardPaths[shard]);
+                        synchronized (searchers) {
+                            searchers[shard] = is;
+                        }
+                        return is.search(query, numHits);
+                    }
+                }));
+            }
+            //等待所有分片结束后再处理失败，保证finally中归还全部搜索器
+            TopDocs[] shardHits = new TopDocs[shardPaths.length];
+            Exception failure = null;
+            for(int i = 0; i < shardHits.length; i++){
+                try{
+                    shardHits[i] = getResult(futures.get(i));
+                }catch(Exception e){
+                    if(failure == null){
+                        failure = e;
+                    }
+                }
+            }
+            if(failure != null){
+                throw failure;
+            }
+
+            //合并为全局结果并截取当前页
+            ScoreDoc[] pageDocs = TopDocs.merge(start, pageSize, shardHits).scoreDocs;
+
+            //按分片提取结果集，再还原为合并后的顺序
+            FieldModel[][] ordered = new FieldModel[pageDocs.length][];
+            for(int shard = 0; shard < shardPaths.length; shard++){
+                List<Integer> positions = new ArrayList<Integer>();
+                List<ScoreDoc> shardDocs = new ArrayList<ScoreDoc>();
+                for(int i = 0; i < pageDocs.length; i++){
+                    if(pageDocs[i].shardIndex == shard){
+                        positions.add(i);
+                        shardDocs.add(pageDocs[i]);
+                    }
+                }
+                if(shardDocs.isEmpty()){
+                    continue;
+                }
+                IndexSearcher is;
+                synchronized (searchers) {
+                    is = searchers[shard];
+                }
+                List<FieldModel[]> extracted = LuceneUtil.extractDocs(shardPaths[shard], is, query,
+                        shardDocs.toArray(new ScoreDoc[shardDocs.size()]), doc);
+                for(int i = 0; i < positions.size(); i++){
+                    ordered[positions.get(i)] = extracted.get(i);
+                }
+            }
+            for(FieldModel[] resDoc : ordered){
+                resDocList.add(resDoc);
+            }
+        }finally{
+            synchronized (searchers) {
+                for(int i = 0; i < searchers.length; i++){
+                    if(searchers[i] != null){
+                        LuceneUtil.releaseIndexSearcher(shardPaths[i], searchers[i]);
+                        searchers[i] = null;
+                    }
+                }
+            }
+        }
+        return resDocList;
+    }
+
+    /**
+     * 统计匹配查询的记录条数-各分片并行统计后求和
+     * @param queryStr			搜索字符串
+     * @param searchColNames	搜索范围[字段名-建立索引时的域名]
+     * @return
+     * @throws Exception
+     */
+    public int count(final String queryStr, final String[] searchColNames) throws Exception{
+        if(queryStr == null || searchColNames == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>(shardPaths.length);
+        for(final String shardPath : shardPaths){
+            futures.add(shardExecutor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return LuceneUtil.count(shardPath, queryStr, searchColNames);
+                }
+            }));
+        }
+        int total = 0;
+        for(Future<Integer> future : futures){
+            total += getResult(future);
+        }
+        return total;
+    }
+
+    /**
+     * 分片任务
+     */
+    private interface ShardTask{
+        void run(int shard) throws Exception;
+    }
+
+    /**
+     * 在所有分片上并行执行任务，全部完成后返回
+     * @param task		分片任务
+     * @throws Exception	任一分片失败时抛出(其余分片的任务仍会执行完毕)
+     */
+    private void runOnShards(final ShardTask task) throws Exception{
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(shardPaths.length);
+        for(int i = 0; i < shardPaths.length; i++){
+            final int shard = i;
+            futures.add(shardExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    task.run(shard);
+                    return null;
+                }
+            }));
+        }
+        Exception failure = null;
+        for(Future<Void> future : futures){
+            try{
+                getResult(future);
+            }catch(Exception e){
+                if(failure == null){
+                    failure = e;
+                }
+            }
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    /**
+     * 按主键将文档分组到各分片
+     * @param docs		文档模型
+     * @return			下标为分片号的文档列表
+     */
+    private List<List<FieldModel[]>> routeDocs(FieldModel[][] docs){
+        List<List<FieldModel[]>> shardDocs = new ArrayList<List<FieldModel[]>>(shardPaths.length);
+        for(int i = 0; i < shardPaths.length; i++){
+            shardDocs.add(new ArrayList<FieldModel[]>());
+        }
+        for(FieldModel[] doc : docs){
+            Term idTerm = LuceneUtil.getIdTerm(doc);
+            if(idTerm == null){
+                throw new IllegalArgumentException("文档缺少主键模型！");
+            }
+            shardDocs.get(shardFor(idTerm.text())).add(doc);
+        }
+        return shardDocs;
+    }
+
+    /**
+     * 获取并行任务的结果，解开ExecutionException
+     */
+    private static <T> T getResult(Future<T> future) throws Exception{
+        try{
+            return future.get();
+        }catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof Exception){
+                throw (Exception) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.aws.test.utils;
+
+/**
+ * 慢查询监听器
+ * 描述：接收超过阈值的慢查询记录，在搜索线程中同步调用，实现应尽快返回(如交给日志框架)
+ * @author @AWS
+ *
+ */
+public interface SlowQueryListener {
+    /**
+     * 记录一条慢查询
+     * @param record	慢查询记录
+     */
+    void onSlowQuery(SlowQueryRecord record);
+}
@@ -0,0 +1,158 @@
+package com.aws.test.utils;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 慢查询日志
+ * 描述：按采样率挑选搜索调用记录各阶段耗时，总耗时超过阈值时生成慢查询记录交给监听器；
+ * 未被采样的调用只多一次判断，关闭时不产生任何开销，适合在高负载下常开
+ * @author @AWS
+ *
+ */
+class SlowQueryLog {
+    /**
+     * 默认监听器-输出到标准错误
+     */
+    private static final SlowQueryListener STDERR_LISTENER = new SlowQueryListener() {
+        @Override
+        public void onSlowQuery(SlowQueryRecord record) {
+            System.err.println(record);
+        }
+    };
+
+    /**
+     * 一次搜索调用的阶段计时
+     */
+    static class Trace{
+        private final long startNanos = System.nanoTime();
+        /**
+         * 当前阶段开始时间
+         */
+        private long phaseStart = startNanos;
+        long parseNanos;
+        long collectNanos;
+        long loadNanos;
+        long highlightNanos;
+
+        /**
+         * 开始一个阶段
+         */
+        void begin(){
+            phaseStart = System.nanoTime();
+        }
+
+        /**
+         * 结束解析阶段
+         */
+        void endParse(){
+            parseNanos += System.nanoTime() - phaseStart;
+        }
+
+        /**
+         * 结束收集阶段
+         */
+        void endCollect(){
+            collectNanos += System.nanoTime() - phaseStart;
+        }
+    }
+
+    /**
+     * 阈值(纳秒)-0表示关闭
+     */
+    private volatile long thresholdNanos;
+
+    /**
+     * 采样率(0,1]
+     */
+    private volatile double sampleRate = 1.0;
+
+    /**
+     * 是否记录首个结果的评分解释
+     */
+    private volatile boolean explain;
+
+    private volatile SlowQueryListener listener = STDERR_LISTENER;
+
+    /**
+     * 配置慢查询日志
+     * @param thresholdMillis	阈值(毫秒)，0表示关闭
+     * @param sampleRate		采样率(0,1]
+     * @param explain			是否记录首个结果的评分解释
+     */
+    void configure(long thresholdMillis, double sampleRate, boolean explain){
+        if(thresholdMillis < 0){
+            throw new IllegalArgumentException("慢查询阈值不能小于0！");
+        }
+        if(!(sampleRate > 0 && sampleRate <= 1)){
+            throw new IllegalArgumentException("采样率须在(0,1]之间！");
+        }
+        this.sampleRate = sampleRate;
+        this.explain = explain;
+        this.thresholdNanos = thresholdMillis * 1000000L;
+    }
+
+    /**
+     * 设置监听器
+     * @param listener		慢查询监听器，null时输出到标准错误
+     */
+    void setListener(SlowQueryListener listener){
+        this.listener = listener != null ? listener : STDERR_LISTENER;
+    }
+
+    /**
+     * 开始一次搜索调用
+     * @return		本次调用被采样时返回计时对象，否则返回null
+     */
+    Trace start(){
+        if(thresholdNanos <= 0){
+            return null;
+        }
+        double rate = sampleRate;
+        if(rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate){
+            return null;
+        }
+        return new Trace();
+    }
+
+    /**
+     * 结束一次搜索调用-超过阈值时生成记录，须在归还搜索器前调用
+     * @param trace			start返回的计时对象，null时忽略
+     * @param indexPath		索引存储路径
+     * @param queryStr		搜索字符串
+     * @param query			查询对象
+     * @param is			索引搜索器
+     * @param totalHits		匹配总数
+     * @param scoreDocs		返回的命中
+     */
+    void finish(Trace trace, String indexPath, String queryStr, Query query, IndexSearcher is,
+                int totalHits, ScoreDoc[] scoreDocs){
+        if(trace == null){
+            return;
+        }
+        long totalNanos = System.nanoTime() - trace.startNanos;
+        if(totalNanos < thresholdNanos){
+            return;
+        }
+        String explanation = null;
+        if(explain && scoreDocs.length > 0){
+            try{
+                explanation = is.explain(query, scoreDocs[0].doc).toString();
+            }catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+        SlowQueryRecord record = new SlowQueryRecord(indexPath, queryStr, query.toString(), totalHits, scoreDocs.length,
+                totalNanos / 1000, trace.parseNanos / 1000, trace.collectNanos / 1000, trace.loadNanos / 1000,
+                trace.highlightNanos / 1000, explanation);
+        try{
+            listener.onSlowQuery(record);
+        }catch(Exception e){
+            //监听器异常不影响搜索
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.aws.test.utils;
+
+/**
+ * 慢查询记录
+ * 描述：一次慢查询的索引目录、查询、命中数及各阶段耗时(微秒)；
+ * 阶段：解析(含查询缓存)、收集(搜索与排序)、加载(存储字段/DocValues)、高亮，其余为获取搜索器等开销
+ * @author @AWS
+ *
+ */
+public class SlowQueryRecord {
+    private final String indexPath;
+    private final String queryStr;
+    private final String parsedQuery;
+    private final int totalHits;
+    private final int returnedHits;
+    private final long totalMicros;
+    private final long parseMicros;
+    private final long collectMicros;
+    private final long loadMicros;
+    private final long highlightMicros;
+    private final String explanation;
+
+    SlowQueryRecord(String indexPath, String queryStr, String parsedQuery, int totalHits, int returnedHits,
+                    long totalMicros, long parseMicros, long collectMicros, long loadMicros,
+                    long highlightMicros, String explanation){
+        this.indexPath = indexPath;
+        this.queryStr = queryStr;
+        this.parsedQuery = parsedQuery;
+        this.totalHits = totalHits;
+        this.returnedHits = returnedHits;
+        this.totalMicros = totalMicros;
+        this.parseMicros = parseMicros;
+        this.collectMicros = collectMicros;
+        this.loadMicros = loadMicros;
+        this.highlightMicros = highlightMicros;
+        this.explanation = explanation;
+    }
+
+    public String getIndexPath() {
+        return indexPath;
+    }
+    public String getQueryStr() {
+        return queryStr;
+    }
+    public String getParsedQuery() {
+        return parsedQuery;
+    }
+    public int getTotalHits() {
+        return totalHits;
+    }
+    public int getReturnedHits() {
+        return returnedHits;
+    }
+    public long getTotalMicros() {
+        return totalMicros;
+    }
+    public long getParseMicros() {
+        return parseMicros;
+    }
+    public long getCollectMicros() {
+        return collectMicros;
+    }
+    public long getLoadMicros() {
+        return loadMicros;
+    }
+    public long getHighlightMicros() {
+        return highlightMicros;
+    }
+    /**
+     * 首个返回结果的评分解释-未开启时为null
+     */
+    public String getExplanation() {
+        return explanation;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("慢查询 ").append(totalMicros / 1000).append("ms")
+                .append(" index=").append(indexPath)
+                .append(" query=").append(queryStr)
+                .append(" parsed=").append(parsedQuery)
+                .append(" hits=").append(totalHits)
+                .append(" returned=").append(returnedHits)
+                .append(" parse=").append(parseMicros).append("us")
+                .append(" collect=").append(collectMicros).append("us")
+                .append(" load=").append(loadMicros).append("us")
+                .append(" highlight=").append(highlightMicros).append("us");
+        if(explanation != null){
+            sb.append("\n").append(explanation);
+        }
+        return sb.toString();
+    }
+}
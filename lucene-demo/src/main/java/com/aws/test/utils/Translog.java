@@ -0,0 +1,840 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 预写日志(translog)
+ * 描述：写入操作先追加到索引目录旁的日志文件并fsync(并发写入合并为一次fsync)再应用到写入器，不再每次调用都提交；
+ * 应用失败的记录追加中止标记，重放时只应用原写入已生效的部分；追加或fsync失败后拒绝写入，直到下一次提交截断失败的日志；
+ * 由后台线程按周期提交并截断日志，写入器打开时将最后一次提交之后的日志重放到写入器，进程崩溃也不丢失已返回的写入
+ * 日志文件：{索引存储路径}.translog/translog-{代数}.tlog，每条记录为[长度][CRC32][操作]
+ * @author @AWS
+ *
+ */
+class Translog {
+    /**
+     * 默认提交周期(毫秒)
+     */
+    static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 5000L;
+
+    /**
+     * 提交数据中记录日志代数的key-小于该代数的日志已全部包含在提交中
+     */
+    static final String GENERATION_KEY = "translog_generation";
+
+    /**
+     * 操作类型：新增
+     */
+    static final byte OP_ADD = 1;
+
+    /**
+     * 操作类型：新增或修改(依据主键替换)
+     */
+    static final byte OP_UPSERT = 2;
+
+    /**
+     * 操作类型：删除(依据主键)
+     */
+    static final byte OP_DELETE = 3;
+
+    /**
+     * 中止标记-占用记录的操作数位置，其后为被中止记录的结束位置与已生效的操作数
+     */
+    private static final int ABORT_MARKER = -1;
+
+    private static final String FILE_PREFIX = "translog-";
+
+    private static final String FILE_SUFFIX = ".tlog";
+
+    /**
+     * 记录头长度：长度(int) + CRC32(long)
+     */
+    private static final int HEADER_BYTES = 12;
+
+    /**
+     * 域类型编码：无域类型(删除操作的主键模型)
+     */
+    private static final byte FIELD_TYPE_NULL = -2;
+
+    /**
+     * 域类型编码：自定义域类型，逐项写入属性
+     */
+    private static final byte FIELD_TYPE_CUSTOM = -1;
+
+    /**
+     * 可按编号还原的预定义域类型-只能在末尾追加，编号写入日志
+     */
+    private static final FieldType[] KNOWN_FIELD_TYPES = {
+            LuceneUtil.TEXT_FIELD_TYPE_STORED,
+            LuceneUtil.TEXT_FIELD_TYPE_NOT_STORED,
+            LuceneUtil.STRING_FIELD_TYPE_STORED,
+            LuceneUtil.STRING_FIELD_TYPE_NOT_STORED,
+            LuceneUtil.TEXT_FIELD_TYPE_STORED_OFFSETS,
+            LuceneUtil.TEXT_FIELD_TYPE_STORED_TERM_VECTORS,
+            LuceneUtil.STRING_FIELD_TYPE_STORED_DOC_VALUES,
+            LuceneUtil.STRING_FIELD_TYPE_DOC_VALUES,
+            LuceneUtil.LONG_FIELD_TYPE_STORED,
+            LuceneUtil.LONG_FIELD_TYPE_NOT_STORED,
+            LuceneUtil.DOUBLE_FIELD_TYPE_STORED,
+            LuceneUtil.DOUBLE_FIELD_TYPE_NOT_STORED
+    };
+
+    /**
+     * 后台提交线程
+     */
+    private static final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "lucene-translog-committer");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * 日志提交器
+     */
+    interface Committer{
+        /**
+         * 提交索引目录-写入器未打开时忽略
+         * @param indexPath		索引存储路径
+         * @throws Exception
+         */
+        void commit(String indexPath) throws Exception;
+    }
+
+    /**
+     * 一次写入调用的日志记录-重放时整体应用
+     */
+    static class Record{
+        private final List<Byte> types = new ArrayList<Byte>();
+        private final List<FieldModel[]> docs = new ArrayList<FieldModel[]>();
+
+        /**
+         * 最近一次应用时已生效的操作数
+         */
+        private int applied;
+
+        /**
+         * 创建同一操作类型的记录
+         * @param type		操作类型
+         * @param docs		文档模型（[对象][字段]），删除时为主键模型
+         * @return
+         */
+        static Record of(byte type, FieldModel[]... docs){
+            Record record = new Record();
+            for(FieldModel[] doc : docs){
+                record.add(type, doc);
+            }
+            return record;
+        }
+
+        Record add(byte type, FieldModel[] doc){
+            types.add(type);
+            docs.add(doc);
+            return this;
+        }
+
+        /**
+         * 应用到写入器(不提交)
+         * @param iw		索引写入器
+         * @param replay	是否为重放-重放时有主键的新增按主键替换，重复重放不产生重复文档
+         * @throws IOException
+         */
+        void applyTo(IndexWriter iw, boolean replay) throws IOException{
+            applyTo(iw, replay, docs.size());
+        }
+
+        /**
+         * 应用到写入器(不提交)-先构建全部文档，构建失败时写入器不受影响；
+         * 按顺序逐条应用，遇到失败的操作即停止，之前的操作已生效，数量见applied()
+         * @param iw		索引写入器
+         * @param replay	是否为重放-重放时有主键的新增按主键替换，重复重放不产生重复文档
+         * @param limit		最多应用的操作数
+         * @throws IOException
+         */
+        void applyTo(IndexWriter iw, boolean replay, int limit) throws IOException{
+            applied = 0;
+            Document[] built = new Document[Math.min(limit, docs.size())];
+            for(int i = 0; i < built.length; i++){
+                if(types.get(i) != OP_DELETE){
+                    built[i] = LuceneUtil.buildDocument(docs.get(i));
+                }
+            }
+            //按记录顺序逐条应用，同一主键以最后一次操作为准
+            for(int i = 0; i < built.length; i++){
+                byte type = types.get(i);
+                FieldModel[] doc = docs.get(i);
+                if(type == OP_DELETE){
+                    for(FieldModel idCol : doc){
+                        if(idCol.getIdFlag()){
+                            iw.deleteDocuments(new Term(idCol.getFieldName(), idCol.getFieldValue()));
+                        }
+                    }
+                }else{
+                    Term idTerm = LuceneUtil.getIdTerm(doc);
+                    if(idTerm != null && (type == OP_UPSERT || replay)){
+                        iw.updateDocument(idTerm, built[i]);
+                    }else{
+                        iw.addDocument(built[i]);
+                    }
+                }
+                applied++;
+            }
+        }
+
+        /**
+         * 最近一次应用时已生效的操作数
+         * @return
+         */
+        int applied(){
+            return applied;
+        }
+
+        byte[] encode() throws IOException{
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(docs.size());
+            for(int i = 0; i < docs.size(); i++){
+                out.writeByte(types.get(i));
+                FieldModel[] doc = docs.get(i);
+                out.writeInt(doc.length);
+                for(FieldModel col : doc){
+                    writeString(out, col.getFieldName());
+                    writeString(out, col.getFieldValue());
+                    writeFieldType(out, col.getFieldType());
+                    out.writeBoolean(col.getIdFlag());
+                    out.writeBoolean(col.getHighlightFlag());
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        static Record decode(byte[] payload) throws IOException{
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            Record record = new Record();
+            int count = in.readInt();
+            for(int i = 0; i < count; i++){
+                byte type = in.readByte();
+                FieldModel[] doc = new FieldModel[in.readInt()];
+                for(int j = 0; j < doc.length; j++){
+                    String fieldName = readString(in);
+                    String fieldValue = readString(in);
+                    FieldType fieldType = readFieldType(in);
+                    boolean idFlag = in.readBoolean();
+                    boolean highlightFlag = in.readBoolean();
+                    doc[j] = new FieldModel(fieldName, fieldValue, fieldType, idFlag, highlightFlag);
+                }
+                record.add(type, doc);
+            }
+            return record;
+        }
+    }
+
+    /**
+     * 记录在日志中的位置
+     */
+    private static class Location{
+        private final long generation;
+        private final long offset;
+
+        private Location(long generation, long offset){
+            this.generation = generation;
+            this.offset = offset;
+        }
+    }
+
+    private final String indexPath;
+
+    /**
+     * 日志目录
+     */
+    private final Path dir;
+
+    /**
+     * 切换代数时排除写入-保证旧代数的记录都已应用到写入器，提交时全部包含在内
+     */
+    private final ReentrantReadWriteLock rollLock = new ReentrantReadWriteLock();
+
+    /**
+     * 追加锁-保护当前代数、文件通道与写入位置
+     */
+    private final Object appendLock = new Object();
+
+    /**
+     * fsync锁-等待中的写入由同一次fsync一并持久化；与追加锁同时持有时先取fsync锁
+     */
+    private final Object syncLock = new Object();
+
+    private long generation;
+
+    private FileChannel channel;
+
+    private long writtenOffset;
+
+    private long syncedOffset;
+
+    /**
+     * 上次提交后是否有新的记录
+     */
+    private volatile boolean dirty;
+
+    /**
+     * 追加或fsync是否失败-失败后拒绝写入，直到提交截断失败的代数
+     */
+    private volatile boolean failed;
+
+    /**
+     * 失败时的代数
+     */
+    private long failedGeneration;
+
+    private ScheduledFuture<?> commitTask;
+
+    Translog(String indexPath){
+        this.indexPath = indexPath;
+        this.dir = Paths.get(indexPath + ".translog");
+    }
+
+    /**
+     * 注册周期提交任务
+     * @param intervalMillis	提交周期(毫秒)
+     * @param committer			日志提交器
+     */
+    synchronized void schedule(long intervalMillis, final Committer committer){
+        if(commitTask != null){
+            commitTask.cancel(false);
+        }
+        commitTask = Translog.committer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if(!dirty){
+                    return;
+                }
+                try{
+                    committer.commit(indexPath);
+                }catch(Exception e){
+                    //提交失败不终止任务，日志保留到下个周期
+                    e.printStackTrace();
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 写入-追加日志并fsync后应用到写入器
+     * 注：追加或fsync失败时操作不会应用到写入器；应用失败时已生效的操作保留在写入器中，
+     * 同时追加中止标记使重放结果与之一致
+     * @param iw		索引写入器
+     * @param record	日志记录
+     * @throws IOException
+     */
+    void write(IndexWriter iw, Record record) throws IOException{
+        byte[] payload = record.encode();
+        //追加、fsync与应用都在读锁内完成：切换代数时旧代数的记录都已应用到写入器
+        rollLock.readLock().lock();
+        try{
+            if(failed){
+                throw new IOException("预写日志写入失败，下次提交成功前拒绝写入：" + dir);
+            }
+            Location location = appendAndSync(payload);
+            try{
+                record.applyTo(iw, false);
+            }catch(Exception e){
+                try{
+                    appendAndSync(encodeAbort(location.offset, record.applied()));
+                }catch(Exception abortFailure){
+                    e.addSuppressed(abortFailure);
+                }
+                throw e;
+            }
+        }finally{
+            rollLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 提交写入器并截断日志
+     * @param iw		索引写入器
+     * @throws IOException
+     */
+    synchronized void commit(IndexWriter iw) throws IOException{
+        long newGeneration;
+        //切换代数与prepareCommit在写锁内完成：之后追加到新代数的写入不包含在本次提交中，恢复时只重放一次
+        rollLock.writeLock().lock();
+        try{
+            boolean rolled = false;
+            try{
+                newGeneration = roll();
+                rolled = true;
+            }finally{
+                if(!rolled){
+                    markFailed();
+                }
+            }
+            Map<String,String> commitData = new HashMap<String,String>(iw.getCommitData());
+            commitData.put(GENERATION_KEY, String.valueOf(newGeneration));
+            iw.setCommitData(commitData);
+            iw.prepareCommit();
+        }finally{
+            rollLock.writeLock().unlock();
+        }
+        iw.commit();
+        deleteBelow(newGeneration);
+        synchronized (appendLock) {
+            //失败的代数已被本次提交截断，恢复写入
+            if(failed && failedGeneration < newGeneration){
+                failed = false;
+            }
+        }
+    }
+
+    /**
+     * 恢复-写入器打开后调用，重放最后一次提交之后的日志并提交
+     * @param iw		新打开的索引写入器
+     * @return			重放的记录数
+     * @throws IOException
+     */
+    int recover(IndexWriter iw) throws IOException{
+        closeChannel();
+        if(!Files.isDirectory(dir)){
+            Files.createDirectories(dir);
+            IOUtils.fsync(dir.toAbsolutePath().getParent(), true);
+        }
+        String committed = iw.getCommitData().get(GENERATION_KEY);
+        long committedGeneration = committed != null ? Long.parseLong(committed) : 0L;
+        List<Long> generations = listGenerations();
+        int replayed = 0;
+        long lastGeneration = committedGeneration;
+        for(long gen : generations){
+            if(gen >= committedGeneration){
+                replayed += replay(iw, gen);
+            }
+            lastGeneration = Math.max(lastGeneration, gen);
+        }
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                generation = lastGeneration;
+            }
+        }
+        dirty = true;
+        commit(iw);
+        return replayed;
+    }
+
+    /**
+     * 关闭日志文件-关闭写入器前调用，周期提交任务保留，写入器重新打开后继续生效
+     */
+    void close(){
+        closeChannel();
+    }
+
+    /**
+     * 追加并fsync-失败时标记日志不可用
+     * @param payload		记录内容
+     * @return				记录位置
+     * @throws IOException
+     */
+    private Location appendAndSync(byte[] payload) throws IOException{
+        boolean success = false;
+        try{
+            Location location = append(payload);
+            sync(location);
+            success = true;
+            return location;
+        }finally{
+            if(!success){
+                markFailed();
+            }
+        }
+    }
+
+    /**
+     * 标记日志不可用-当前日志文件末尾可能残留不完整或未持久化的记录，之后追加的记录无法可靠重放；
+     * 关闭日志文件并拒绝写入，由下一次提交切换代数，失败的操作未应用到写入器，截断后彻底丢弃
+     */
+    private void markFailed(){
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                failed = true;
+                failedGeneration = generation;
+                dirty = true;
+                if(channel != null){
+                    try{
+                        channel.close();
+                    }catch(IOException e){
+                        e.printStackTrace();
+                    }
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    private Location append(byte[] payload) throws IOException{
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putLong(crc.getValue()).put(payload);
+        buffer.flip();
+        synchronized (appendLock) {
+            if(channel == null){
+                Path file = fileOf(generation);
+                boolean created = !Files.exists(file);
+                channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                if(created){
+                    //新建的日志文件须fsync目录，否则崩溃后文件本身可能丢失
+                    IOUtils.fsync(dir, true);
+                }
+                writtenOffset = channel.size();
+                syncedOffset = writtenOffset;
+            }
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            writtenOffset += HEADER_BYTES + payload.length;
+            dirty = true;
+            return new Location(generation, writtenOffset);
+        }
+    }
+
+    /**
+     * fsync到指定位置-已被其他写入的fsync覆盖时直接返回
+     * @param location		记录位置
+     * @throws IOException
+     */
+    private void sync(Location location) throws IOException{
+        synchronized (syncLock) {
+            FileChannel ch;
+            long target;
+            synchronized (appendLock) {
+                //已切换代数的旧日志在切换时已fsync
+                if(location.generation != generation || syncedOffset >= location.offset){
+                    return;
+                }
+                ch = channel;
+                target = writtenOffset;
+            }
+            ch.force(false);
+            synchronized (appendLock) {
+                syncedOffset = Math.max(syncedOffset, target);
+            }
+        }
+    }
+
+    /**
+     * 切换到新的代数-fsync并关闭当前日志文件
+     * @return		新的代数
+     * @throws IOException
+     */
+    private long roll() throws IOException{
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if(channel != null){
+                    channel.force(false);
+                    channel.close();
+                    channel = null;
+                }
+                dirty = false;
+                return ++generation;
+            }
+        }
+    }
+
+    private void closeChannel(){
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if(channel != null){
+                    try{
+                        channel.force(false);
+                        channel.close();
+                    }catch(IOException e){
+                        e.printStackTrace();
+                    }
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 重放一个代数的日志-遇到不完整或校验失败的记录(崩溃时未写完)即停止；
+     * 带中止标记的记录只应用原写入已生效的操作
+     * @param iw			索引写入器
+     * @param gen			代数
+     * @return				重放的记录数
+     * @throws IOException
+     */
+    private int replay(IndexWriter iw, long gen) throws IOException{
+        //中止标记在被中止的记录之后，先收集：记录结束位置 -> 已生效的操作数
+        Map<Long,Integer> aborted = new HashMap<Long,Integer>();
+        RecordReader reader = new RecordReader(gen, false);
+        try{
+            byte[] payload;
+            while((payload = reader.next()) != null){
+                if(isAbort(payload)){
+                    ByteBuffer marker = ByteBuffer.wrap(payload);
+                    marker.getInt();
+                    aborted.put(marker.getLong(), marker.getInt());
+                }
+            }
+        }finally{
+            reader.close();
+        }
+        int count = 0;
+        reader = new RecordReader(gen, true);
+        try{
+            byte[] payload;
+            while((payload = reader.next()) != null){
+                if(isAbort(payload)){
+                    continue;
+                }
+                Integer applied = aborted.get(reader.position);
+                try{
+                    Record.decode(payload).applyTo(iw, true, applied != null ? applied : Integer.MAX_VALUE);
+                }catch(RuntimeException e){
+                    //崩溃前未来得及追加中止标记，原写入同样在此失败
+                    e.printStackTrace();
+                }
+                count++;
+            }
+        }finally{
+            reader.close();
+        }
+        return count;
+    }
+
+    /**
+     * 顺序读取一个代数的日志记录
+     */
+    private class RecordReader{
+        private final long gen;
+        private final boolean warn;
+        private final DataInputStream in;
+        /**
+         * 已读记录的结束位置
+         */
+        private long position;
+
+        /**
+         * @param gen		代数
+         * @param warn		校验失败时是否输出
+         * @throws IOException
+         */
+        private RecordReader(long gen, boolean warn) throws IOException{
+            this.gen = gen;
+            this.warn = warn;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fileOf(gen))));
+        }
+
+        /**
+         * 读取下一条记录
+         * @return		记录内容，遇到文件末尾、不完整或校验失败的记录时返回null
+         * @throws IOException
+         */
+        private byte[] next() throws IOException{
+            byte[] payload;
+            try{
+                int length = in.readInt();
+                long checksum = in.readLong();
+                if(length < 0){
+                    return null;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload, 0, length);
+                if(crc.getValue() != checksum){
+                    if(warn){
+                        new IOException("预写日志记录校验失败，忽略之后的记录：" + fileOf(gen)).printStackTrace();
+                    }
+                    return null;
+                }
+            }catch(EOFException e){
+                return null;
+            }
+            position += HEADER_BYTES + payload.length;
+            return payload;
+        }
+
+        private void close() throws IOException{
+            in.close();
+        }
+    }
+
+    /**
+     * 编码中止标记
+     * @param recordEnd		被中止记录的结束位置
+     * @param applied		原写入已生效的操作数
+     * @return
+     * @throws IOException
+     */
+    private static byte[] encodeAbort(long recordEnd, int applied) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(ABORT_MARKER);
+        out.writeLong(recordEnd);
+        out.writeInt(applied);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static boolean isAbort(byte[] payload){
+        return ByteBuffer.wrap(payload).getInt() == ABORT_MARKER;
+    }
+
+    private void deleteBelow(long gen){
+        try{
+            for(long g : listGenerations()){
+                if(g < gen){
+                    Files.deleteIfExists(fileOf(g));
+                }
+            }
+        }catch(IOException e){
+            //残留的旧日志在下次恢复时按提交的代数跳过
+            e.printStackTrace();
+        }
+    }
+
+    private List<Long> listGenerations() throws IOException{
+        List<Long> generations = new ArrayList<Long>();
+        if(!Files.isDirectory(dir)){
+            return generations;
+        }
+        DirectoryStream<Path> files = Files.newDirectoryStream(dir, FILE_PREFIX + "*" + FILE_SUFFIX);
+        try{
+            for(Path file : files){
+                String name = file.getFileName().toString();
+                try{
+                    generations.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+                }catch(NumberFormatException e){
+                    //非日志文件
+                }
+            }
+        }finally{
+            files.close();
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private Path fileOf(long gen){
+        return dir.resolve(FILE_PREFIX + gen + FILE_SUFFIX);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException{
+        if(value == null){
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException{
+        int length = in.readInt();
+        if(length < 0){
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入域类型-预定义域类型只写编号，保证重放后与原写入使用同一实例
+     */
+    private static void writeFieldType(DataOutputStream out, FieldType fieldType) throws IOException{
+        if(fieldType == null){
+            out.writeByte(FIELD_TYPE_NULL);
+            return;
+        }
+        for(int i = 0; i < KNOWN_FIELD_TYPES.length; i++){
+            if(KNOWN_FIELD_TYPES[i] == fieldType){
+                out.writeByte(i);
+                return;
+            }
+        }
+        out.writeByte(FIELD_TYPE_CUSTOM);
+        out.writeBoolean(fieldType.stored());
+        out.writeBoolean(fieldType.tokenized());
+        out.writeBoolean(fieldType.storeTermVectors());
+        out.writeBoolean(fieldType.storeTermVectorOffsets());
+        out.writeBoolean(fieldType.storeTermVectorPositions());
+        out.writeBoolean(fieldType.storeTermVectorPayloads());
+        out.writeBoolean(fieldType.omitNorms());
+        writeString(out, fieldType.indexOptions().name());
+        writeString(out, fieldType.docValuesType().name());
+        writeString(out, fieldType.numericType() != null ? fieldType.numericType().name() : null);
+        out.writeInt(fieldType.numericPrecisionStep());
+    }
+
+    private static FieldType readFieldType(DataInputStream in) throws IOException{
+        byte code = in.readByte();
+        if(code == FIELD_TYPE_NULL){
+            return null;
+        }
+        if(code >= 0){
+            if(code >= KNOWN_FIELD_TYPES.length){
+                throw new IOException("未知的域类型编号：" + code);
+            }
+            return KNOWN_FIELD_TYPES[code];
+        }
+        FieldType fieldType = new FieldType();
+        fieldType.setStored(in.readBoolean());
+        fieldType.setTokenized(in.readBoolean());
+        fieldType.setStoreTermVectors(in.readBoolean());
+        fieldType.setStoreTermVectorOffsets(in.readBoolean());
+        fieldType.setStoreTermVectorPositions(in.readBoolean());
+        fieldType.setStoreTermVectorPayloads(in.readBoolean());
+        fieldType.setOmitNorms(in.readBoolean());
+        fieldType.setIndexOptions(IndexOptions.valueOf(readString(in)));
+        fieldType.setDocValuesType(DocValuesType.valueOf(readString(in)));
+        String numericType = readString(in);
+        if(numericType != null){
+            fieldType.setNumericType(FieldType.NumericType.valueOf(numericType));
+        }
+        fieldType.setNumericPrecisionStep(in.readInt());
+        fieldType.freeze();
+        return fieldType;
+    }
+}
@@ -0,0 +1,133 @@
+package com.aws.test.utils;
+
+import com.aws.test.utils.LuceneUtil.FieldModel;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量写入
+ * 描述：按主键收集新增/修改(upsert)与删除操作，同一主键只保留最后一次操作；
+ * 应用时每个主键的最新版本以updateDocument原子替换(近实时读取器不会看到主键缺失的中间状态)，
+ * 纯删除合并为一次deleteDocuments，批次内对热点主键的重复修改只产生一次替换
+ * @author @AWS
+ *
+ */
+public class WriteBatch {
+    /**
+     * 批次内的操作-key:主键，value：最新版本的文档模型，删除时为null
+     */
+    private final Map<Term,FieldModel[]> ops = new LinkedHashMap<Term,FieldModel[]>();
+
+    /**
+     * 加入批次的操作数(去重前)
+     */
+    private int submittedCount;
+
+    /**
+     * 新增或修改文档-依据主键替换旧文档
+     * @param docs		文档模型（[对象][字段]）-文档必须建立主键模型
+     * @return
+     */
+    public WriteBatch upsert(FieldModel[]... docs){
+        if(docs == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        for(FieldModel[] doc : docs){
+            Term idTerm = LuceneUtil.getIdTerm(doc);
+            if(idTerm == null){
+                throw new IllegalArgumentException("文档缺少主键模型！");
+            }
+            ops.put(idTerm, doc);
+            submittedCount++;
+        }
+        return this;
+    }
+
+    /**
+     * 删除文档-依据文档的主键
+     * @param idColArr		主键字段模型数组（[主键]）-非主键模型将被忽略
+     * @return
+     */
+    public WriteBatch delete(FieldModel[] idColArr){
+        if(idColArr == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        for(FieldModel idCol : idColArr){
+            if(idCol.getIdFlag()){
+                ops.put(new Term(idCol.getFieldName(), idCol.getFieldValue()), null);
+                submittedCount++;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 去重后的操作数
+     */
+    public int size(){
+        return ops.size();
+    }
+
+    /**
+     * 加入批次的操作数(去重前)
+     */
+    public int getSubmittedCount(){
+        return submittedCount;
+    }
+
+    public boolean isEmpty(){
+        return ops.isEmpty();
+    }
+
+    /**
+     * 转换为预写日志记录-删除操作记为主键模型
+     * @return
+     */
+    Translog.Record toRecord(){
+        Translog.Record record = new Translog.Record();
+        for(Map.Entry<Term,FieldModel[]> op : ops.entrySet()){
+            if(op.getValue() != null){
+                record.add(Translog.OP_UPSERT, op.getValue());
+            }else{
+                Term term = op.getKey();
+                record.add(Translog.OP_DELETE, new FieldModel[]{new FieldModel(term.field(), term.text(), null, true, false)});
+            }
+        }
+        return record;
+    }
+
+    /**
+     * 将批次应用到写入器(不提交)-先构建全部文档，构建失败时写入器不受影响
+     * @param iw		索引写入器
+     * @throws IOException
+     */
+    void applyTo(IndexWriter iw) throws IOException{
+        if(ops.isEmpty()){
+            return;
+        }
+        List<Document> docs = new ArrayList<Document>(ops.size());
+        for(FieldModel[] doc : ops.values()){
+            docs.add(doc != null ? LuceneUtil.buildDocument(doc) : null);
+        }
+        List<Term> deleteTerms = new ArrayList<Term>();
+        int i = 0;
+        for(Term term : ops.keySet()){
+            Document doc = docs.get(i++);
+            if(doc != null){
+                iw.updateDocument(term, doc);
+            }else{
+                deleteTerms.add(term);
+            }
+        }
+        if(!deleteTerms.isEmpty()){
+            iw.deleteDocuments(deleteTerms.toArray(new Term[deleteTerms.size()]));
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.aws.test.utils.ik;
+
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.cfg.DefaultConfig;
+import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.dic.MappedDictSegment;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * IK词典快照
+ * 描述：构建期将主词典、量词词典、扩展词典与停止词词典编译为二进制词典树文件；
+ * 运行期只读映射该文件并替换IK词典单例中的堆内词典树，启动时不再解析文本词典，
+ * 映射的页由操作系统页缓存承载，同一主机上的多个JVM共享
+ * 生成：java -cp ... com.aws.test.utils.ik.IKDictionarySnapshot 快照文件 [附加词典文件...]
+ * 启用：-Dik.dict.snapshot=快照文件，或在首次分词前调用install
+ * 文件格式：[int 魔数][int 版本][int 主词典根][int 量词词典根][int 停止词词典根]
+ * [int 主词典词数][int 量词词数][int 停止词数][long 词典树CRC32][词典树节点...]，节点布局见MappedDictSegment
+ * @author @AWS
+ *
+ */
+public final class IKDictionarySnapshot {
+    /**
+     * 启用快照的系统属性-值为快照文件路径
+     */
+    public static final String SNAPSHOT_PROPERTY = "ik.dict.snapshot";
+
+    private static final int MAGIC = 0x494B4453;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 40;
+
+    /**
+     * 空词典资源-安装快照时IK初始化词典单例不再解析主词典
+     */
+    private static final String EMPTY_DICT = "ikanalyzer/empty.dic";
+
+    /**
+     * 已安装的快照路径
+     */
+    private static volatile String installedPath;
+
+    private IKDictionarySnapshot(){
+    }
+
+    /**
+     * 生成快照-词典来源与IK运行期一致(IKAnalyzer.cfg.xml)
+     * @param snapshotPath		快照文件
+     * @param extDictFiles		附加词典文件(文件系统路径，每行一个词)
+     * @throws IOException
+     */
+    public static void compile(String snapshotPath, String... extDictFiles) throws IOException{
+        if(snapshotPath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        Configuration cfg = DefaultConfig.getInstance();
+        ClassLoader loader = Dictionary.class.getClassLoader();
+        Set<String> mainWords = new TreeSet<String>();
+        readResource(loader, cfg.getMainDictionary(), mainWords, true);
+        for(String ext : cfg.getExtDictionarys()){
+            readResource(loader, ext, mainWords, false);
+        }
+        if(extDictFiles != null){
+            for(String file : extDictFiles){
+                InputStream is = new FileInputStream(file);
+                readWords(is, mainWords);
+            }
+        }
+        Set<String> quantifiers = new TreeSet<String>();
+        readResource(loader, cfg.getQuantifierDicionary(), quantifiers, true);
+        Set<String> stopWords = new TreeSet<String>();
+        for(String ext : cfg.getExtStopWordDictionarys()){
+            readResource(loader, ext, stopWords, false);
+        }
+
+        TrieWriter writer = new TrieWriter();
+        writer.reserve(HEADER_SIZE);
+        int mainRoot = writer.writeTree(mainWords);
+        int quantifierRoot = writer.writeTree(quantifiers);
+        int stopRoot = writer.writeTree(stopWords);
+        ByteBuffer buffer = writer.toBuffer();
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        crc.update(body);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, mainRoot);
+        buffer.putInt(12, quantifierRoot);
+        buffer.putInt(16, stopRoot);
+        buffer.putInt(20, mainWords.size());
+        buffer.putInt(24, quantifiers.size());
+        buffer.putInt(28, stopWords.size());
+        buffer.putLong(32, crc.getValue());
+
+        //先写临时文件再原子替换-已映射旧快照的JVM继续使用旧文件，不会读到写了一半的内容
+        Path target = Paths.get(snapshotPath).toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp.toFile());
+        try{
+            out.write(buffer.array(), 0, buffer.limit());
+            out.getFD().sync();
+        }finally{
+            out.close();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 安装快照-映射快照文件并替换IK词典单例的主词典、量词词典、停止词词典；
+     * 应在首次分词前调用，安装后词典只读(Dictionary.addWords/disableWords不可用)
+     * @param snapshotPath		快照文件
+     */
+    public static synchronized void install(String snapshotPath){
+        if(snapshotPath == null){
+            throw new IllegalArgumentException("传入参数为空！");
+        }
+        MappedByteBuffer buffer;
+        try{
+            FileChannel channel = FileChannel.open(Paths.get(snapshotPath), StandardOpenOption.READ);
+            try{
+                //映射在通道关闭后仍然有效
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }finally{
+                channel.close();
+            }
+        }catch(IOException e){
+            throw new RuntimeException("词典快照读取失败：" + snapshotPath, e);
+        }
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC){
+            throw new RuntimeException("不是有效的词典快照：" + snapshotPath);
+        }
+        if(buffer.getInt(4) != VERSION){
+            throw new RuntimeException("词典快照版本不兼容：" + snapshotPath);
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        crc.update(body);
+        if(crc.getValue() != buffer.getLong(32)){
+            throw new RuntimeException("词典快照已损坏：" + snapshotPath);
+        }
+
+        Dictionary dictionary = Dictionary.initial(new SnapshotConfig());
+        setDict(dictionary, "_MainDict", new MappedDictSegment(buffer, buffer.getInt(8), (char) 0));
+        setDict(dictionary, "_QuantifierDict", new MappedDictSegment(buffer, buffer.getInt(12), (char) 0));
+        setDict(dictionary, "_StopWordDict", new MappedDictSegment(buffer, buffer.getInt(16), (char) 0));
+        installedPath = snapshotPath;
+    }
+
+    /**
+     * 依据系统属性安装快照-未配置或已安装时不处理，快照不可用时退回文本词典
+     */
+    static void installConfigured(){
+        String snapshotPath = System.getProperty(SNAPSHOT_PROPERTY);
+        if(snapshotPath == null || snapshotPath.trim().isEmpty() || installedPath != null){
+            return;
+        }
+        synchronized(IKDictionarySnapshot.class){
+            if(installedPath != null){
+                return;
+            }
+            try{
+                install(snapshotPath.trim());
+            }catch(RuntimeException e){
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 获取已安装的快照路径
+     * @return	未安装时返回null
+     */
+    public static String getInstalledPath(){
+        return installedPath;
+    }
+
+    public static void main(String[] args) throws IOException{
+        if(args.length < 1){
+            System.err.println("用法：IKDictionarySnapshot 快照文件 [附加词典文件...]");
+            System.exit(1);
+        }
+        String[] extDictFiles = new String[args.length - 1];
+        System.arraycopy(args, 1, extDictFiles, 0, extDictFiles.length);
+        long start = System.currentTimeMillis();
+        compile(args[0], extDictFiles);
+        System.out.println("词典快照已生成：" + args[0] + "，大小：" + new File(args[0]).length()
+                + "字节，耗时：" + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private static void setDict(Dictionary dictionary, String fieldName, MappedDictSegment segment){
+        try{
+            Field field = Dictionary.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(dictionary, segment);
+        }catch(NoSuchFieldException e){
+            throw new RuntimeException("当前IK版本不支持词典快照！", e);
+        }catch(IllegalAccessException e){
+            throw new RuntimeException("当前IK版本不支持词典快照！", e);
+        }
+    }
+
+    /**
+     * 读取类路径下的词典-与IK一致，不存在的扩展词典忽略
+     */
+    private static void readResource(ClassLoader loader, String resource, Set<String> words, boolean required) throws IOException{
+        InputStream is = loader.getResourceAsStream(resource);
+        if(is == null){
+            if(required){
+                throw new RuntimeException("词典不存在：" + resource);
+            }
+            return;
+        }
+        readWords(is, words);
+    }
+
+    /**
+     * 读取词典-每行一个词，与IK一致去除首尾空白并转为小写
+     */
+    private static void readWords(InputStream is, Set<String> words) throws IOException{
+        try{
+            BufferedReader br = new BufferedReader(new InputStreamReader(is, "UTF-8"), 512);
+            String line;
+            while((line = br.readLine()) != null){
+                String word = line.trim().toLowerCase();
+                if(!word.isEmpty()){
+                    words.add(word);
+                }
+            }
+        }finally{
+            is.close();
+        }
+    }
+
+    /**
+     * 词典树序列化
+     */
+    private static final class TrieWriter{
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+        /**
+         * 预留空间
+         * @param bytes		字节数
+         * @return			预留空间的起始偏移
+         */
+        private int reserve(int bytes){
+            int pos = buffer.position();
+            if(buffer.remaining() < bytes){
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() << 1, pos + bytes));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            buffer.position(pos + bytes);
+            return pos;
+        }
+
+        /**
+         * 写入词典树
+         * @param words		有序词条
+         * @return			根节点偏移
+         */
+        private int writeTree(Set<String> words){
+            String[] sorted = words.toArray(new String[words.size()]);
+            return writeNode(sorted, 0, sorted.length, 0);
+        }
+
+        /**
+         * 写入节点-words[lo,hi)为共享前缀长度depth的词条，有序词条中同一字符的子树连续且子节点字符递增
+         */
+        private int writeNode(String[] words, int lo, int hi, int depth){
+            boolean wordEnd = false;
+            if(lo < hi && words[lo].length() == depth){
+                wordEnd = true;
+                lo++;
+            }
+            int count = 0;
+            for(int i = lo; i < hi; count++){
+                i = nextGroup(words, i, hi, depth);
+            }
+            int node = reserve(4);
+            int offsets = reserve(count << 2);
+            int keys = reserve(((count << 1) + 3) & ~3);
+            buffer.putInt(node, (count << 1) | (wordEnd ? 1 : 0));
+            int k = 0;
+            for(int i = lo; i < hi; k++){
+                int next = nextGroup(words, i, hi, depth);
+                buffer.putChar(keys + (k << 1), words[i].charAt(depth));
+                int child = writeNode(words, i, next, depth + 1);
+                buffer.putInt(offsets + (k << 2), child);
+                i = next;
+            }
+            return node;
+        }
+
+        private static int nextGroup(String[] words, int from, int hi, int depth){
+            char c = words[from].charAt(depth);
+            int i = from + 1;
+            while(i < hi && words[i].charAt(depth) == c){
+                i++;
+            }
+            return i;
+        }
+
+        private ByteBuffer toBuffer(){
+            ByteBuffer out = buffer.duplicate();
+            out.flip();
+            return out;
+        }
+    }
+
+    /**
+     * 安装快照时使用的IK配置-主词典与量词词典指向空词典，不加载扩展词典与停止词词典
+     */
+    private static final class SnapshotConfig implements Configuration{
+        private boolean useSmart;
+
+        @Override
+        public boolean useSmart() {
+            return useSmart;
+        }
+
+        @Override
+        public void setUseSmart(boolean useSmart) {
+            this.useSmart = useSmart;
+        }
+
+        @Override
+        public String getMainDictionary() {
+            return EMPTY_DICT;
+        }
+
+        @Override
+        public String getQuantifierDicionary() {
+            return EMPTY_DICT;
+        }
+
+        @Override
+        public List<String> getExtDictionarys() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getExtStopWordDictionarys() {
+            return Collections.emptyList();
+        }
+    }
+}
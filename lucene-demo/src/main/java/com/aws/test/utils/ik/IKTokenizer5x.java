@@ -23,6 +23,11 @@ public class IKTokenizer5x extends Tokenizer {
     private final TypeAttribute typeAtt = (TypeAttribute)this.addAttribute(TypeAttribute.class);
     private int endPosition;
 
+    static {
+        //配置了词典快照时在首次分词前安装
+        IKDictionarySnapshot.installConfigured();
+    }
+
     public IKTokenizer5x() {
         this._IKImplement = new IKSegmenter(this.input, true);
     }
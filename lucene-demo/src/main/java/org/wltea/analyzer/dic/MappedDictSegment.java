@@ -0,0 +1,120 @@
+package org.wltea.analyzer.dic;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 内存映射的词典树节点
+ * 描述：直接在只读映射的词典快照上匹配，节点不驻留堆内存，仅在前缀命中时为续匹配创建一个轻量节点；
+ * 快照格式见com.aws.test.utils.ik.IKDictionarySnapshot，节点布局：
+ * [int 子节点数<<1|成词标记][int[] 子节点偏移][char[] 有序子节点字符，补齐到4字节]
+ * 须与IK的DictSegment同包才能被Dictionary/Hit使用
+ * @author @AWS
+ *
+ */
+public class MappedDictSegment extends DictSegment {
+    private final ByteBuffer buffer;
+
+    private final int offset;
+
+    /**
+     * @param buffer	快照缓冲区-只使用绝对位置读取，可被多线程共享
+     * @param offset	节点在缓冲区内的偏移
+     * @param nodeChar	节点字符
+     */
+    public MappedDictSegment(ByteBuffer buffer, int offset, char nodeChar) {
+        super(Character.valueOf(nodeChar));
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    @Override
+    boolean hasNextNode() {
+        return childCount(offset) > 0;
+    }
+
+    @Override
+    Hit match(char[] charArray) {
+        return match(charArray, 0, charArray.length, null);
+    }
+
+    @Override
+    Hit match(char[] charArray, int begin, int length) {
+        return match(charArray, begin, length, null);
+    }
+
+    /**
+     * 匹配词段-与DictSegment的语义一致：逐字下行，末字命中成词节点记为匹配，末字节点仍有子节点记为前缀
+     */
+    @Override
+    Hit match(char[] charArray, int begin, int length, Hit searchHit) {
+        if(searchHit == null){
+            searchHit = new Hit();
+            searchHit.setBegin(begin);
+        }else{
+            searchHit.setUnmatch();
+        }
+        int node = offset;
+        int end = begin + length;
+        for(int i = begin; i < end; i++){
+            searchHit.setEnd(i);
+            int child = findChild(node, charArray[i]);
+            if(child < 0){
+                return searchHit;
+            }
+            node = child;
+        }
+        if(length > 0){
+            if(isWordEnd(node)){
+                searchHit.setMatch();
+            }
+            if(childCount(node) > 0){
+                searchHit.setPrefix();
+                searchHit.setMatchedDictSegment(new MappedDictSegment(buffer, node, charArray[end - 1]));
+            }
+        }
+        return searchHit;
+    }
+
+    @Override
+    void fillSegment(char[] charArray) {
+        throw new UnsupportedOperationException("词典快照只读，新增词条须重新生成快照！");
+    }
+
+    @Override
+    void disableSegment(char[] charArray) {
+        throw new UnsupportedOperationException("词典快照只读，屏蔽词条须重新生成快照！");
+    }
+
+    private int childCount(int node){
+        return buffer.getInt(node) >>> 1;
+    }
+
+    private boolean isWordEnd(int node){
+        return (buffer.getInt(node) & 1) != 0;
+    }
+
+    /**
+     * 二分查找子节点
+     * @param node		节点偏移
+     * @param c			子节点字符
+     * @return			子节点偏移，不存在时返回-1
+     */
+    private int findChild(int node, char c){
+        int count = childCount(node);
+        int keys = node + 4 + (count << 2);
+        int low = 0;
+        int high = count - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            char key = buffer.getChar(keys + (mid << 1));
+            if(key < c){
+                low = mid + 1;
+            }else if(key > c){
+                high = mid - 1;
+            }else{
+                return buffer.getInt(node + 4 + (mid << 2));
+            }
+        }
+        return -1;
+    }
+}